@@ -0,0 +1,36 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.swagger.petstore.resource.PetResource;
+import io.swagger.petstore.resource.PetStoreResource;
+import io.swagger.petstore.resource.UserResource;
+
+import java.util.List;
+
+/**
+ * The APIs that benchmarks can be parameterised with.
+ */
+class BenchmarkApis {
+
+    /**
+     * The petstore API from the mu-swagger test fixtures.
+     */
+    static final String PETSTORE = "petstore";
+
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    /**
+     * Creates the resources for an API
+     *
+     * @param api either <code>petstore</code> or <code>synthetic-{operationCount}</code>
+     * @return the resource instances
+     */
+    static List<Object> resources(String api) {
+        if (PETSTORE.equals(api)) {
+            return List.of(new PetStoreResource(), new PetResource(), new UserResource());
+        } else if (api.startsWith(SYNTHETIC_PREFIX)) {
+            return SyntheticApi.withOperations(Integer.parseInt(api.substring(SYNTHETIC_PREFIX.length()))).resources();
+        }
+        throw new IllegalArgumentException("Unknown API " + api);
+    }
+
+}
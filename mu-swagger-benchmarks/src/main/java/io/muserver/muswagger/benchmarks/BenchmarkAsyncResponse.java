@@ -0,0 +1,98 @@
+package io.muserver.muswagger.benchmarks;
+
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.TimeoutHandler;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An async response for calling resource methods directly, which makes the resumed response available
+ * as a future.
+ */
+class BenchmarkAsyncResponse implements AsyncResponse {
+
+    private final CompletableFuture<Response> response = new CompletableFuture<>();
+
+    /**
+     * @return the response that the resource resumed with
+     */
+    Response get() throws Exception {
+        return response.get();
+    }
+
+    @Override
+    public boolean resume(Object response) {
+        return this.response.complete((Response) response);
+    }
+
+    @Override
+    public boolean resume(Throwable response) {
+        return this.response.completeExceptionally(response);
+    }
+
+    @Override
+    public boolean cancel() {
+        return response.cancel(false);
+    }
+
+    @Override
+    public boolean cancel(int retryAfter) {
+        return cancel();
+    }
+
+    @Override
+    public boolean cancel(Date retryAfter) {
+        return cancel();
+    }
+
+    @Override
+    public boolean isSuspended() {
+        return !response.isDone();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return response.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return response.isDone();
+    }
+
+    @Override
+    public boolean setTimeout(long time, TimeUnit unit) {
+        return false;
+    }
+
+    @Override
+    public void setTimeoutHandler(TimeoutHandler handler) {
+    }
+
+    @Override
+    public Collection<Class<?>> register(Class<?> callback) {
+        return List.of();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+        return Map.of();
+    }
+
+    @Override
+    public Collection<Class<?>> register(Object callback) {
+        return List.of();
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+        return Map.of();
+    }
+
+}
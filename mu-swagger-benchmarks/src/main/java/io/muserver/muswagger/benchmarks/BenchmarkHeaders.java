@@ -0,0 +1,71 @@
+package io.muserver.muswagger.benchmarks;
+
+import jakarta.ws.rs.core.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fixed request headers for calling resource methods directly.
+ */
+class BenchmarkHeaders implements HttpHeaders {
+
+    private final MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+
+    BenchmarkHeaders(String name, String value) {
+        headers.putSingle(name.toLowerCase(Locale.ROOT), value);
+    }
+
+    @Override
+    public List<String> getRequestHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public String getHeaderString(String name) {
+        var values = getRequestHeader(name);
+        return values == null ? null : String.join(",", values);
+    }
+
+    @Override
+    public MultivaluedMap<String, String> getRequestHeaders() {
+        return headers;
+    }
+
+    @Override
+    public List<MediaType> getAcceptableMediaTypes() {
+        return List.of(MediaType.WILDCARD_TYPE);
+    }
+
+    @Override
+    public List<Locale> getAcceptableLanguages() {
+        return List.of();
+    }
+
+    @Override
+    public MediaType getMediaType() {
+        return null;
+    }
+
+    @Override
+    public Locale getLanguage() {
+        return null;
+    }
+
+    @Override
+    public Map<String, Cookie> getCookies() {
+        return Map.of();
+    }
+
+    @Override
+    public Date getDate() {
+        return null;
+    }
+
+    @Override
+    public int getLength() {
+        return -1;
+    }
+}
@@ -0,0 +1,120 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.muserver.muswagger.MuOpenApiResource;
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that parallel and incremental generation produce the same documents, byte for byte, as sequential
+ * generation of the same resources, so that the faster paths can be relied on to be interchangeable with it.
+ *
+ * <p>For each API, the JSON and YAML documents are compared between:</p>
+ * <ul>
+ *     <li>sequential generation and generation with several threads</li>
+ *     <li>a resource that had its last resource class added with {@link MuOpenApiResource#addResource(Object)}
+ *     and one that was built with all of them</li>
+ *     <li>after that class is removed again, and then re-added, so that the kept partial models are merged</li>
+ *     <li>after the first resource class is removed</li>
+ * </ul>
+ *
+ * <p>Run with:</p>
+ *
+ * <pre>java -cp target/benchmarks.jar io.muserver.muswagger.benchmarks.ConsistencyCheck [apis...]</pre>
+ *
+ * <p>The process exits with status 1 if any documents differ.</p>
+ */
+public class ConsistencyCheck {
+
+    private static final String[] DEFAULT_APIS = {BenchmarkApis.PETSTORE, "synthetic-100"};
+    private static final List<String> FORMATS = List.of("json", "yaml");
+    private static final AtomicLong contextIds = new AtomicLong();
+
+    private int failures;
+
+    /**
+     * Runs the check.
+     *
+     * @param args the APIs to check, defaulting to <code>petstore</code> and <code>synthetic-100</code>
+     * @throws Exception if generation fails
+     */
+    public static void main(String[] args) throws Exception {
+        var check = new ConsistencyCheck();
+        for (String api : args.length == 0 ? DEFAULT_APIS : args) {
+            check.check(api);
+        }
+        if (check.failures > 0) {
+            System.out.println(check.failures + " documents differed");
+            System.exit(1);
+        }
+        System.out.println("All documents were identical");
+    }
+
+    private void check(String api) throws Exception {
+        var resources = BenchmarkApis.resources(api);
+        if (resources.size() < 2) {
+            throw new IllegalArgumentException("The " + api + " API needs at least two resources to check incremental generation");
+        }
+        var last = resources.get(resources.size() - 1);
+        var allButLast = resources.subList(0, resources.size() - 1);
+        var allButFirst = resources.subList(1, resources.size());
+
+        var sequential = documents(resources, 1);
+        compare(api, "parallel", sequential, documents(resources, 4));
+
+        try (var incremental = resource(allButLast, 1)) {
+            var withoutLast = documents(incremental);
+            compare(api, "sequential without the last resource", documents(allButLast, 1), withoutLast);
+            incremental.addResource(last).toCompletableFuture().join();
+            compare(api, "added", sequential, documents(incremental));
+            incremental.removeResource(last).toCompletableFuture().join();
+            compare(api, "removed", withoutLast, documents(incremental));
+            incremental.addResource(last).toCompletableFuture().join();
+            compare(api, "re-added", sequential, documents(incremental));
+            incremental.removeResource(resources.get(0)).toCompletableFuture().join();
+            compare(api, "removed first", documents(allButFirst, 1), documents(incremental));
+        }
+    }
+
+    private void compare(String api, String variant, List<byte[]> expected, List<byte[]> actual) {
+        for (int i = 0; i < FORMATS.size(); i++) {
+            var format = FORMATS.get(i);
+            int mismatch = Arrays.mismatch(expected.get(i), actual.get(i));
+            if (mismatch == -1) {
+                System.out.printf("%s %s %s: identical (%d bytes)%n", api, variant, format, actual.get(i).length);
+            } else {
+                failures++;
+                System.out.printf("%s %s %s: differs from sequential generation at byte %d%n", api, variant, format, mismatch);
+            }
+        }
+    }
+
+    private static List<byte[]> documents(List<Object> resources, int parallelism) throws Exception {
+        try (var resource = resource(resources, parallelism)) {
+            return documents(resource);
+        }
+    }
+
+    private static List<byte[]> documents(MuOpenApiResource resource) throws Exception {
+        var documents = new ArrayList<byte[]>();
+        for (String format : FORMATS) {
+            var out = new ByteArrayOutputStream();
+            resource.writeDocument(format, out);
+            documents.add(out.toByteArray());
+        }
+        return documents;
+    }
+
+    private static MuOpenApiResource resource(List<Object> resources, int parallelism) {
+        return MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(new ArrayList<>(resources))
+            .withContextId("consistency-" + contextIds.incrementAndGet())
+            .withGenerationParallelism(parallelism)
+            .build();
+    }
+
+}
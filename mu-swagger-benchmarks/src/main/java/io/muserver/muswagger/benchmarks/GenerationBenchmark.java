@@ -0,0 +1,79 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.muserver.muswagger.MuOpenApiResource;
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures cold generation: the time from building a new {@link MuOpenApiResource} to having its first
+ * document rendered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(2)
+public class GenerationBenchmark {
+
+    private static final AtomicLong contextIds = new AtomicLong();
+
+    /**
+     * The API to generate a document for.
+     */
+    @Param({BenchmarkApis.PETSTORE, "synthetic-100", "synthetic-1000"})
+    public String api;
+
+    /**
+     * The format to generate.
+     */
+    @Param({"json", "yaml"})
+    public String format;
+
+    private List<Object> resources;
+    private MuOpenApiResource resource;
+
+    /**
+     * Creates the resources once so that compiling synthetic APIs is not measured.
+     */
+    @Setup(Level.Trial)
+    public void createResources() {
+        resources = BenchmarkApis.resources(api);
+    }
+
+    /**
+     * Creates a new OpenAPI resource with its own swagger context and no schema cache, so that nothing is cached.
+     * See {@link SchemaCacheBenchmark} for generation with a shared schema cache.
+     */
+    @Setup(Level.Invocation)
+    public void createOpenApiResource() {
+        resource = MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(resources)
+            .withContextId("benchmark-" + contextIds.incrementAndGet())
+            .build();
+    }
+
+    /**
+     * Generates the document.
+     *
+     * @throws Exception if generation fails
+     */
+    @Benchmark
+    public void coldGeneration() throws Exception {
+        resource.writeDocument(format, OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Closes the resource so that its swagger context is not kept for the rest of the trial.
+     */
+    @TearDown(Level.Invocation)
+    public void closeOpenApiResource() {
+        resource.close();
+    }
+
+}
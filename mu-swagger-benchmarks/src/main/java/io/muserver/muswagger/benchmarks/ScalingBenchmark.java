@@ -0,0 +1,73 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.muserver.muswagger.MuOpenApiResource;
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the time to first document as a synthetic API grows from 10 to 10,000 operations. With the GC
+ * profiler the allocation per generation is also reported. See {@link ScalingReport} for the retained heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xss4m")
+public class ScalingBenchmark {
+
+    private static final AtomicLong contextIds = new AtomicLong();
+
+    /**
+     * The number of operations in the API.
+     */
+    @Param({"10", "100", "1000", "10000"})
+    public int operations;
+
+    private List<Object> resources;
+    private MuOpenApiResource resource;
+
+    /**
+     * Generates the API once so that compiling it is not measured.
+     */
+    @Setup(Level.Trial)
+    public void createResources() {
+        resources = SyntheticApi.withOperations(operations).resources();
+    }
+
+    /**
+     * Creates a new OpenAPI resource with its own swagger context and no schema cache, so that nothing is cached.
+     * See {@link SchemaCacheBenchmark} for generation with a shared schema cache.
+     */
+    @Setup(Level.Invocation)
+    public void createOpenApiResource() {
+        resource = MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(resources)
+            .withContextId("scaling-" + contextIds.incrementAndGet())
+            .build();
+    }
+
+    /**
+     * Generates the JSON document.
+     *
+     * @throws Exception if generation fails
+     */
+    @Benchmark
+    public void timeToFirstSpec() throws Exception {
+        resource.writeDocument("json", OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Closes the resource so that its swagger context is not kept for the rest of the trial.
+     */
+    @TearDown(Level.Invocation)
+    public void closeOpenApiResource() {
+        resource.close();
+    }
+
+}
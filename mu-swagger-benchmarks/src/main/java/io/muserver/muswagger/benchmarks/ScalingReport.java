@@ -0,0 +1,101 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.muserver.muswagger.MuOpenApiResource;
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.Reference;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reports how the time to first document and the retained heap grow with the size of an API, along with the
+ * growth exponent between each size (where 1.0 means linear growth).
+ *
+ * <p>Each size is measured once in the same JVM, so this gives a quick view of the shape of the curve
+ * rather than precise numbers; use {@link ScalingBenchmark} for timings. Run with:</p>
+ *
+ * <pre>java -cp target/benchmarks.jar io.muserver.muswagger.benchmarks.ScalingReport [sizes...]</pre>
+ *
+ * <p>The results are also written to <code>target/scaling-result.json</code>.</p>
+ */
+public class ScalingReport {
+
+    private static final int[] DEFAULT_SIZES = {10, 100, 1000, 10000};
+
+    /**
+     * Runs the report.
+     *
+     * @param args the operation counts to measure, defaulting to 10, 100, 1000 and 10000
+     * @throws Exception if generation fails
+     */
+    public static void main(String[] args) throws Exception {
+        var sizes = args.length == 0 ? DEFAULT_SIZES : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        // a throwaway run so that class loading and swagger's start-up are not counted in the first size
+        measure(sizes[0], "warm-up");
+        var results = new ArrayList<Result>();
+        for (int size : sizes) {
+            var result = measure(size, "scaling-report-" + size);
+            var previous = results.isEmpty() ? null : results.get(results.size() - 1);
+            results.add(result);
+            System.out.printf("%6d operations: %8d ms, %8d KB retained%s%n", result.operations, result.millis,
+                result.retainedBytes / 1024, previous == null ? ""
+                    : String.format(" (time exponent %.2f, heap exponent %.2f)",
+                        exponent(previous.operations, result.operations, previous.millis, result.millis),
+                        exponent(previous.operations, result.operations, previous.retainedBytes, result.retainedBytes)));
+        }
+        write(results, Path.of("target", "scaling-result.json"));
+    }
+
+    private static Result measure(int operations, String contextId) throws Exception {
+        var resources = SyntheticApi.withOperations(operations).resources();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        try (MuOpenApiResource resource = MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(resources)
+            .withContextId(contextId)
+            .build()) {
+            resource.writeDocument("json", OutputStream.nullOutputStream());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            long retained = usedHeap() - heapBefore;
+            // keep the resource, and so the swagger context and cached document, reachable until measured
+            Reference.reachabilityFence(resource);
+            return new Result(operations, millis, Math.max(0, retained));
+        }
+    }
+
+    private static long usedHeap() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            memory.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double exponent(long x1, long x2, long y1, long y2) {
+        if (y1 <= 0 || y2 <= 0) {
+            return Double.NaN;
+        }
+        return Math.log((double) y2 / y1) / Math.log((double) x2 / x1);
+    }
+
+    private static void write(List<Result> results, Path file) throws IOException {
+        var sb = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            var r = results.get(i);
+            sb.append(String.format("  {\"operations\": %d, \"millis\": %d, \"retainedBytes\": %d}%s%n",
+                r.operations, r.millis, r.retainedBytes, i < results.size() - 1 ? "," : ""));
+        }
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, sb.append("]\n"));
+    }
+
+    private record Result(int operations, long millis, long retainedBytes) {
+    }
+
+}
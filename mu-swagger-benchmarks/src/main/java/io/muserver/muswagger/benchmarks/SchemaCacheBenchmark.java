@@ -0,0 +1,100 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.muserver.muswagger.MuOpenApiResource;
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+import io.muserver.muswagger.SchemaCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures generation for a new resource when another resource documenting the same model classes has already
+ * been generated, with and without a shared {@link SchemaCache}. This is the case of one resource per tenant
+ * or API version, and shows whether copying cached schemas is faster than resolving them again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(2)
+public class SchemaCacheBenchmark {
+
+    private static final AtomicLong contextIds = new AtomicLong();
+
+    /**
+     * The API to generate a document for.
+     */
+    @Param({BenchmarkApis.PETSTORE, "synthetic-1000"})
+    public String api;
+
+    /**
+     * Whether the resources share a schema cache.
+     */
+    @Param({"false", "true"})
+    public boolean schemaCache;
+
+    private List<Object> resources;
+    private SchemaCache cache;
+    private MuOpenApiResource first;
+    private MuOpenApiResource resource;
+
+    /**
+     * Creates the resources and generates the first resource's document, which fills the cache if there is one.
+     *
+     * @throws Exception if generation fails
+     */
+    @Setup(Level.Trial)
+    public void generateFirst() throws Exception {
+        resources = BenchmarkApis.resources(api);
+        cache = schemaCache ? SchemaCache.schemaCache(10_000) : null;
+        first = newResource();
+        first.writeDocument("json", OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Creates another resource for the same API, with its own swagger context.
+     */
+    @Setup(Level.Invocation)
+    public void createOpenApiResource() {
+        resource = newResource();
+    }
+
+    private MuOpenApiResource newResource() {
+        return MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(resources)
+            .withContextId("schema-cache-" + contextIds.incrementAndGet())
+            .withSchemaCache(cache)
+            .build();
+    }
+
+    /**
+     * Generates the document.
+     *
+     * @throws Exception if generation fails
+     */
+    @Benchmark
+    public void generation() throws Exception {
+        resource.writeDocument("json", OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Closes the resource so that its context is not kept for the rest of the trial.
+     */
+    @TearDown(Level.Invocation)
+    public void closeOpenApiResource() {
+        resource.close();
+    }
+
+    /**
+     * Closes the first resource, which clears the cache.
+     */
+    @TearDown(Level.Trial)
+    public void closeFirst() {
+        first.close();
+    }
+
+}
@@ -0,0 +1,84 @@
+package io.muserver.muswagger.benchmarks;
+
+import io.muserver.muswagger.MuOpenApiResource;
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+import io.muserver.muswagger.WarmUpMode;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.muserver.rest.RestHandlerBuilder.restHandler;
+
+/**
+ * Measures requests for a document that has already been generated. Run with the GC profiler (which
+ * {@link BenchmarkRunner} adds by default) to see the allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ServingBenchmark {
+
+    /**
+     * The API to serve.
+     */
+    @Param({BenchmarkApis.PETSTORE, "synthetic-1000"})
+    public String api;
+
+    /**
+     * The format to request.
+     */
+    @Param({"json", "yaml"})
+    public String format;
+
+    /**
+     * The Accept-Encoding request header.
+     */
+    @Param({"identity", "gzip"})
+    public String acceptEncoding;
+
+    private MuOpenApiResource resource;
+    private HttpHeaders headers;
+
+    /**
+     * Builds and warms up the resource.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        var resources = BenchmarkApis.resources(api);
+        resource = MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(resources)
+            .withPrecompressedGzip(true)
+            .withWarmUpMode(WarmUpMode.EAGER)
+            .build();
+        // registers mu-server's JAX-RS runtime, which builds the responses
+        restHandler(resource).build();
+        headers = new BenchmarkHeaders("Accept-Encoding", acceptEncoding);
+    }
+
+    /**
+     * Gets the document.
+     *
+     * @return the response, including the entity
+     * @throws Exception if the request fails
+     */
+    @Benchmark
+    public Response getOpenApi() throws Exception {
+        var response = new BenchmarkAsyncResponse();
+        resource.getOpenApi(response, headers, format, null, null);
+        return response.get();
+    }
+
+    /**
+     * Closes the resource.
+     */
+    @TearDown(Level.Trial)
+    public void closeOpenApiResource() {
+        resource.close();
+    }
+
+}
@@ -0,0 +1,224 @@
+package io.muserver.muswagger.benchmarks;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Generates annotated JAX-RS resource classes so that APIs much larger than the petstore can be benchmarked.
+ *
+ * <p>The sources are generated as text and compiled in memory with the system java compiler, so a JDK
+ * (rather than a JRE) is needed to run the benchmarks.</p>
+ */
+public class SyntheticApi {
+
+    private static final String PACKAGE = "io.muserver.muswagger.synthetic";
+
+    private final int resourceCount;
+    private final int operationsPerResource;
+    private final int modelCount;
+
+    /**
+     * Creates a generator
+     *
+     * @param resourceCount the number of resource classes to generate
+     * @param operationsPerResource the number of operations on each resource class
+     * @param modelCount the number of model types to generate, which are shared between the operations
+     */
+    public SyntheticApi(int resourceCount, int operationsPerResource, int modelCount) {
+        if (resourceCount < 1 || operationsPerResource < 1 || modelCount < 1) {
+            throw new IllegalArgumentException("resourceCount, operationsPerResource and modelCount must be at least 1");
+        }
+        this.resourceCount = resourceCount;
+        this.operationsPerResource = operationsPerResource;
+        this.modelCount = modelCount;
+    }
+
+    /**
+     * Creates a generator for an API with the given number of operations, with 10 operations per resource
+     * and a model type for every 5 operations.
+     *
+     * @param operations the total number of operations
+     * @return a generator
+     */
+    public static SyntheticApi withOperations(int operations) {
+        int perResource = Math.min(10, operations);
+        return new SyntheticApi((operations + perResource - 1) / perResource, perResource, Math.max(1, operations / 5));
+    }
+
+    /**
+     * @return the total number of operations that will be generated
+     */
+    public int operationCount() {
+        return resourceCount * operationsPerResource;
+    }
+
+    /**
+     * @return the number of model types that will be generated
+     */
+    public int modelCount() {
+        return modelCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticApi{resources=" + resourceCount + ", operationsPerResource=" + operationsPerResource
+            + ", models=" + modelCount + "}";
+    }
+
+    /**
+     * Generates and compiles the API.
+     *
+     * @return instances of each generated resource class
+     */
+    public List<Object> resources() {
+        var sources = new ArrayList<JavaFileObject>();
+        for (int m = 0; m < modelCount; m++) {
+            sources.add(new Source("Model" + m, modelSource(m)));
+        }
+        for (int r = 0; r < resourceCount; r++) {
+            sources.add(new Source("Resource" + r, resourceSource(r)));
+        }
+        var classLoader = compile(sources);
+        var resources = new ArrayList<Object>(resourceCount);
+        try {
+            for (int r = 0; r < resourceCount; r++) {
+                resources.add(classLoader.loadClass(PACKAGE + ".Resource" + r).getConstructor().newInstance());
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not instantiate generated resource", e);
+        }
+        return resources;
+    }
+
+    /**
+     * Each model after the first has a reference to a parent model, forming a binary tree so that schemas are
+     * nested without the nesting getting too deep.
+     */
+    private String modelSource(int m) {
+        var parent = m == 0 ? "" : """
+                @Schema(description = "The parent")
+                public Model%d parent;
+            """.formatted((m - 1) / 2);
+        return """
+            package %1$s;
+
+            import io.swagger.v3.oas.annotations.media.Schema;
+
+            @Schema(description = "Model number %2$d")
+            public class Model%2$d {
+                @Schema(description = "The ID", example = "42")
+                public long id;
+                @Schema(description = "The name", maxLength = 100)
+                public String name;
+                @Schema(description = "Whether it is active")
+                public boolean active;
+                public java.util.List<String> tags;
+            %3$s}
+            """.formatted(PACKAGE, m, parent);
+    }
+
+    private String resourceSource(int r) {
+        var sb = new StringBuilder();
+        sb.append("""
+            package %1$s;
+
+            import io.swagger.v3.oas.annotations.Operation;
+            import io.swagger.v3.oas.annotations.Parameter;
+            import io.swagger.v3.oas.annotations.responses.ApiResponse;
+            import io.swagger.v3.oas.annotations.tags.Tag;
+            import jakarta.ws.rs.*;
+            import jakarta.ws.rs.core.MediaType;
+
+            @Path("/resource%2$d")
+            @Tag(name = "resource%2$d", description = "Synthetic resource %2$d")
+            @Produces(MediaType.APPLICATION_JSON)
+            public class Resource%2$d {
+            """.formatted(PACKAGE, r));
+        for (int o = 0; o < operationsPerResource; o++) {
+            int model = (r * operationsPerResource + o) % modelCount;
+            if (o % 2 == 0) {
+                sb.append("""
+                        @GET
+                        @Path("/op%2$d/{id}")
+                        @Operation(summary = "Gets item %2$d of resource %1$d", responses = {
+                            @ApiResponse(responseCode = "200", description = "The item"),
+                            @ApiResponse(responseCode = "404", description = "Not found")
+                        })
+                        public Model%3$d op%2$d(@Parameter(description = "The ID") @PathParam("id") long id,
+                                                @Parameter(description = "A filter") @QueryParam("filter") String filter) {
+                            return null;
+                        }
+
+                    """.formatted(r, o, model));
+            } else {
+                sb.append("""
+                        @POST
+                        @Path("/op%2$d")
+                        @Consumes(MediaType.APPLICATION_JSON)
+                        @Operation(summary = "Creates item %2$d of resource %1$d")
+                        public Model%3$d op%2$d(Model%3$d body) {
+                            return body;
+                        }
+
+                    """.formatted(r, o, model));
+            }
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static ClassLoader compile(List<JavaFileObject> sources) {
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("A JDK is required to generate synthetic APIs");
+        }
+        var classes = new HashMap<String, ByteArrayOutputStream>();
+        var fileManager = new ForwardingJavaFileManager<>(compiler.getStandardFileManager(null, null, null)) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        return classes.computeIfAbsent(className, k -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        };
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        var options = List.of("-classpath", System.getProperty("java.class.path"), "-proc:none", "-nowarn");
+        if (!compiler.getTask(null, fileManager, diagnostics, options, null, sources).call()) {
+            throw new IllegalStateException("Could not compile synthetic API: " + diagnostics.getDiagnostics());
+        }
+        return new ClassLoader(SyntheticApi.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                var bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                var b = bytes.toByteArray();
+                return defineClass(name, b, 0, b.length);
+            }
+        };
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String simpleName, String code) {
+            super(URI.create("string:///" + PACKAGE.replace('.', '/') + "/" + simpleName + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+package io.muserver.muswagger.maven;
+
+import io.muserver.muswagger.MuOpenApiResourceBuilder;
+import io.swagger.v3.core.util.Yaml;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.servers.Server;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates <code>openapi.json</code> and <code>openapi.yaml</code> from the compiled JAX-RS resource
+ * classes of the project, using the same generation as <code>MuOpenApiResource</code>.
+ *
+ * <p>The generated files can be served at runtime with
+ * {@link MuOpenApiResourceBuilder#withPregeneratedDocuments(String)} so that no annotation scanning
+ * happens when the application starts.</p>
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+    requiresDependencyResolution = ResolutionScope.RUNTIME, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * The fully qualified names of the JAX-RS resource classes to document.
+     */
+    @Parameter(required = true)
+    private List<String> resourceClasses;
+
+    /**
+     * The directory to write the documents to.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File outputDirectory;
+
+    /**
+     * The file name of the documents, without extension.
+     */
+    @Parameter(defaultValue = "openapi", required = true)
+    private String baseName;
+
+    /**
+     * The swagger context ID to use, if the default is not wanted.
+     */
+    @Parameter
+    private String contextId;
+
+    /**
+     * A JSON or YAML file with the OpenAPI definition to add the generated paths and schemas to, for example
+     * with the API's contact details, security schemes and tags.
+     */
+    @Parameter
+    private File openApiFile;
+
+    /**
+     * The title of the API, which replaces any title in the <code>openApiFile</code>.
+     */
+    @Parameter
+    private String apiTitle;
+
+    /**
+     * The version of the API, which replaces any version in the <code>openApiFile</code>.
+     */
+    @Parameter
+    private String apiVersion;
+
+    /**
+     * The description of the API, which replaces any description in the <code>openApiFile</code>.
+     */
+    @Parameter
+    private String apiDescription;
+
+    /**
+     * The URLs of the servers that host the API, which replace any servers in the <code>openApiFile</code>.
+     */
+    @Parameter
+    private List<String> servers;
+
+    /**
+     * Set to true to indent the JSON document for people to read, rather than writing it compactly.
+     */
+    @Parameter(defaultValue = "false")
+    private boolean prettyPrint;
+
+    /**
+     * The number of threads used to read the resource classes.
+     */
+    @Parameter(defaultValue = "1")
+    private int generationParallelism;
+
+    /**
+     * Set to true to skip generation.
+     */
+    @Parameter(property = "muswagger.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping OpenAPI document generation");
+            return;
+        }
+        var currentThread = Thread.currentThread();
+        var originalClassLoader = currentThread.getContextClassLoader();
+        try (var projectClassLoader = createProjectClassLoader()) {
+            currentThread.setContextClassLoader(projectClassLoader);
+            List<Class<?>> classes = new ArrayList<>();
+            for (String className : resourceClasses) {
+                classes.add(projectClassLoader.loadClass(className));
+            }
+            if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+                throw new MojoExecutionException("Could not create " + outputDirectory);
+            }
+            // closing the resource releases its context and models rather than leaving them to this build's JVM
+            try (var resource = MuOpenApiResourceBuilder.muOpenApiResource()
+                .withResourceClasses(classes)
+                .withOpenApi(openApi())
+                .withContextId(contextId)
+                .withGenerationParallelism(generationParallelism)
+                .withPrettyPrint(prettyPrint)
+                .build()) {
+                for (String type : List.of("json", "yaml")) {
+                    var file = new File(outputDirectory, baseName + "." + type);
+                    try (var out = new FileOutputStream(file)) {
+                        resource.writeDocument(type, out);
+                    }
+                    getLog().info("Wrote " + file);
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException("Could not load resource class " + e.getMessage(), e);
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException("Error generating OpenAPI documents", e);
+        } finally {
+            currentThread.setContextClassLoader(originalClassLoader);
+        }
+    }
+
+    /**
+     * Gets the OpenAPI definition from the <code>openApiFile</code> and the API parameters, or null if none of
+     * them are set.
+     */
+    private OpenAPI openApi() throws MojoExecutionException {
+        OpenAPI openApi = null;
+        if (openApiFile != null) {
+            try {
+                // YAML is a superset of JSON, so this reads either
+                openApi = Yaml.mapper().readValue(openApiFile, OpenAPI.class);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Could not read the OpenAPI definition " + openApiFile, e);
+            }
+        }
+        if (apiTitle == null && apiVersion == null && apiDescription == null && (servers == null || servers.isEmpty())) {
+            return openApi;
+        }
+        if (openApi == null) {
+            openApi = new OpenAPI();
+        }
+        if (openApi.getInfo() == null) {
+            openApi.setInfo(new Info());
+        }
+        if (apiTitle != null) {
+            openApi.getInfo().setTitle(apiTitle);
+        }
+        if (apiVersion != null) {
+            openApi.getInfo().setVersion(apiVersion);
+        }
+        if (apiDescription != null) {
+            openApi.getInfo().setDescription(apiDescription);
+        }
+        if (servers != null && !servers.isEmpty()) {
+            var serverModels = new ArrayList<Server>();
+            for (String url : servers) {
+                serverModels.add(new Server().url(url));
+            }
+            openApi.setServers(serverModels);
+        }
+        return openApi;
+    }
+
+    private URLClassLoader createProjectClassLoader() throws MojoExecutionException {
+        try {
+            List<URL> urls = new ArrayList<>();
+            for (String element : project.getRuntimeClasspathElements()) {
+                urls.add(new File(element).toURI().toURL());
+            }
+            return new URLClassLoader(urls.toArray(new URL[0]), getClass().getClassLoader());
+        } catch (DependencyResolutionRequiredException | MalformedURLException e) {
+            throw new MojoExecutionException("Could not build the project classpath", e);
+        }
+    }
+
+}
@@ -2,13 +2,21 @@ package io.muserver.muswagger;
 
 import jakarta.ws.rs.core.Application;
 
+import java.util.HashSet;
 import java.util.Set;
 
 class ApplicationAdaptor extends Application {
-    private final Set<Object> singletons;
+    private volatile Set<Object> singletons;
+    private final Set<Class<?>> classes;
 
-    public ApplicationAdaptor(Set<Object> singletons) {
+    public ApplicationAdaptor(Set<Object> singletons, Set<Class<?>> classes) {
         this.singletons = singletons;
+        this.classes = classes;
+    }
+
+    @Override
+    public Set<Class<?>> getClasses() {
+        return classes;
     }
 
     @Override
@@ -16,4 +24,35 @@ class ApplicationAdaptor extends Application {
         return singletons;
     }
 
+    /**
+     * Adds a singleton. The set of singletons is replaced rather than changed so that readers of the
+     * previous set are not affected.
+     *
+     * @return true if it was added, or false if it was already present
+     */
+    synchronized boolean addSingleton(Object singleton) {
+        if (singletons.contains(singleton)) {
+            return false;
+        }
+        var updated = new HashSet<>(singletons);
+        updated.add(singleton);
+        singletons = Set.copyOf(updated);
+        return true;
+    }
+
+    /**
+     * Removes a singleton.
+     *
+     * @return true if it was removed, or false if it was not present
+     */
+    synchronized boolean removeSingleton(Object singleton) {
+        if (!singletons.contains(singleton)) {
+            return false;
+        }
+        var updated = new HashSet<>(singletons);
+        updated.remove(singleton);
+        singletons = Set.copyOf(updated);
+        return true;
+    }
+
 }
@@ -0,0 +1,31 @@
+package io.muserver.muswagger;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A byte array output stream that is sized from the previous document of the same kind, so that a serialized
+ * document which is the same size as the last one is used without copying it.
+ */
+final class DocumentBuffer extends ByteArrayOutputStream {
+
+    /**
+     * @param sizeHint the expected size of the document, so that the buffer rarely needs to grow
+     */
+    DocumentBuffer(int sizeHint) {
+        super(sizeHint > 0 ? sizeHint : 1024);
+    }
+
+    /**
+     * Gets the written bytes in an array of exactly their size, so that a cached document never holds the unused
+     * capacity of a buffer that grew. This buffer's own array is used when the document filled it, and otherwise
+     * the bytes are copied.
+     *
+     * @return the written bytes, wrapping the whole of its array
+     */
+    synchronized ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(count == buf.length ? buf : Arrays.copyOf(buf, count));
+    }
+
+}
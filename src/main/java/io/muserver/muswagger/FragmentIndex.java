@@ -0,0 +1,72 @@
+package io.muserver.muswagger;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Finds the parts of an OpenAPI model that can be requested individually, keyed by their JSON Pointer
+ * (RFC 6901) within the full document.
+ *
+ * <p>The indexed parts are each path item (for example <code>/paths/~1pet~1{petId}</code>), each operation
+ * of a path item (for example <code>/paths/~1pet~1{petId}/get</code>), and each named component (for
+ * example <code>/components/schemas/Pet</code>).</p>
+ */
+final class FragmentIndex {
+
+    private FragmentIndex() {}
+
+    /**
+     * @return the model objects of each fragment, keyed by JSON Pointer
+     */
+    static Map<String, Object> fragments(OpenAPI openApi) {
+        var fragments = new LinkedHashMap<String, Object>();
+        if (openApi.getPaths() != null) {
+            for (Map.Entry<String, PathItem> path : openApi.getPaths().entrySet()) {
+                var pointer = "/paths/" + escape(path.getKey());
+                fragments.put(pointer, path.getValue());
+                for (Map.Entry<PathItem.HttpMethod, Operation> op : path.getValue().readOperationsMap().entrySet()) {
+                    fragments.put(pointer + "/" + op.getKey().name().toLowerCase(Locale.ROOT), op.getValue());
+                }
+            }
+        }
+        var components = openApi.getComponents();
+        if (components != null) {
+            addComponents(fragments, "schemas", components, Components::getSchemas);
+            addComponents(fragments, "responses", components, Components::getResponses);
+            addComponents(fragments, "parameters", components, Components::getParameters);
+            addComponents(fragments, "examples", components, Components::getExamples);
+            addComponents(fragments, "requestBodies", components, Components::getRequestBodies);
+            addComponents(fragments, "headers", components, Components::getHeaders);
+            addComponents(fragments, "securitySchemes", components, Components::getSecuritySchemes);
+            addComponents(fragments, "links", components, Components::getLinks);
+            addComponents(fragments, "callbacks", components, Components::getCallbacks);
+            addComponents(fragments, "pathItems", components, Components::getPathItems);
+        }
+        return fragments;
+    }
+
+    private static void addComponents(Map<String, Object> fragments, String type, Components components,
+                                      Function<Components, Map<String, ?>> getter) {
+        var values = getter.apply(components);
+        if (values != null) {
+            for (Map.Entry<String, ?> entry : values.entrySet()) {
+                fragments.put("/components/" + type + "/" + escape(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Escapes a JSON Pointer reference token.
+     */
+    static String escape(String token) {
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+
+}
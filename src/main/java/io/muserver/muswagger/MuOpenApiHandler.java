@@ -0,0 +1,298 @@
+package io.muserver.muswagger;
+
+import io.muserver.AsyncHandle;
+import io.muserver.HeaderNames;
+import io.muserver.Headers;
+import io.muserver.Method;
+import io.muserver.MuHandler;
+import io.muserver.MuRequest;
+import io.muserver.MuResponse;
+import io.muserver.ParameterizedHeaderWithValue;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * A Mu handler that serves the OpenAPI documents without going through a JAX-RS rest handler.
+ *
+ * <p>This serves the same URLs as {@link MuOpenApiResource}, such as <code>/openapi.json</code>,
+ * <code>/openapi.yaml?tags=pet</code> and <code>/openapi.json/components/schemas/Pet</code>, with the same
+ * caching, content negotiation and headers. The cached documents are written with Mu's asynchronous write API
+ * so that the request thread is not blocked while the document is sent, and documents that are not cached yet
+ * are generated on the executor set with {@link MuOpenApiResourceBuilder#withGenerationExecutor(java.util.concurrent.Executor)}.</p>
+ *
+ * <p>Usage instructions:</p>
+ * <ol>
+ *     <li>Create a builder with {@link MuOpenApiResourceBuilder#muOpenApiResource()} and set it up as for a
+ *     {@link MuOpenApiResource}</li>
+ *     <li>Build the handler with {@link MuOpenApiResourceBuilder#buildHandler()}</li>
+ *     <li>Add the handler to your server with {@link io.muserver.MuServerBuilder#addHandler(MuHandler)}</li>
+ * </ol>
+ *
+ * <p>The documents can be refreshed, and resources added or removed, through {@link #resource()}.</p>
+ */
+public class MuOpenApiHandler implements MuHandler, AutoCloseable {
+
+    private static final Pattern PATH = Pattern.compile("/openapi\\.(json|yaml)(/.+)?");
+
+    private final MuOpenApiResource resource;
+
+    MuOpenApiHandler(MuOpenApiResource resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Gets the resource that generates and caches the documents served by this handler.
+     *
+     * @return the OpenAPI resource, which should not also be added to a rest handler
+     */
+    public MuOpenApiResource resource() {
+        return resource;
+    }
+
+    /**
+     * Closes the resource that generates the documents, discarding its cached documents and models.
+     * Requests to a closed handler get a <code>503</code> response.
+     *
+     * @see MuOpenApiResource#close()
+     */
+    @Override
+    public void close() {
+        resource.close();
+    }
+
+    /**
+     * Serves the OpenAPI document if the request is for one.
+     *
+     * @param request the request
+     * @param response the response
+     * @return true if the request was for an OpenAPI document, otherwise false
+     * @throws Exception if an error occurs while generating the specification
+     */
+    @Override
+    public boolean handle(MuRequest request, MuResponse response) throws Exception {
+        return handle(request, response, () -> {});
+    }
+
+    /**
+     * Serves the OpenAPI document if the request is for one, running an action once the response is complete,
+     * or once this method returns if the response is not sent asynchronously.
+     */
+    boolean handle(MuRequest request, MuResponse response, Runnable onComplete) throws Exception {
+        boolean completesLater = false;
+        try {
+            if (request.method() != Method.GET && request.method() != Method.HEAD) {
+                return false;
+            }
+            var matcher = PATH.matcher(request.relativePath());
+            if (!matcher.matches()) {
+                return false;
+            }
+            if (resource.isClosed()) {
+                response.status(503);
+                return true;
+            }
+            var event = new OpenApiEvents.Response();
+            event.begin();
+            var type = matcher.group(1);
+            var pointer = matcher.group(2);
+            var negotiated = pointer == null && "json".equals(type);
+            var format = negotiated ? MuOpenApiResource.negotiate(acceptable(request.headers())) : type;
+            var prettyParam = request.query().get("pretty");
+            var pretty = resource.pretty(format, prettyParam == null ? null : Boolean.valueOf(prettyParam));
+            boolean cached;
+            Callable<RenderedSpec> lookup;
+            if (pointer != null) {
+                var decodedPointer = URLDecoder.decode(pointer.replace("+", "%2B"), StandardCharsets.UTF_8);
+                cached = resource.isFragmentCached(type, decodedPointer, pretty);
+                lookup = () -> resource.fragment(type, decodedPointer, pretty);
+            } else {
+                var tags = MuOpenApiResource.parseTags(request.query().get("tags"));
+                if (!tags.isEmpty() && resource.streamsFilteredDocuments()) {
+                    var handle = request.handleAsync();
+                    execute(response, handle, onComplete, () -> {
+                        try {
+                            streamFiltered(request, response, handle, format, tags, pretty, negotiated, event);
+                        } catch (Throwable e) {
+                            handle.complete(e);
+                        } finally {
+                            onComplete.run();
+                        }
+                    });
+                    completesLater = true;
+                    return true;
+                }
+                cached = resource.isCached(format, tags, pretty);
+                lookup = () -> resource.document(format, tags, pretty);
+            }
+            if (cached) {
+                completesLater = send(request, response, null, lookup.call(), format, negotiated, event, onComplete);
+            } else {
+                var handle = request.handleAsync();
+                execute(response, handle, onComplete, () -> {
+                    boolean writing = false;
+                    try {
+                        writing = send(request, response, handle, lookup.call(), format, negotiated, event, onComplete);
+                    } catch (Throwable e) {
+                        handle.complete(e);
+                    } finally {
+                        if (!writing) {
+                            onComplete.run();
+                        }
+                    }
+                });
+                completesLater = true;
+            }
+            return true;
+        } finally {
+            if (!completesLater) {
+                onComplete.run();
+            }
+        }
+    }
+
+    /**
+     * Runs a task for an asynchronous request on the generation executor. If the executor rejects the task, for
+     * example because it is bounded and full or has been shut down, the request is completed with a
+     * <code>503</code> instead.
+     */
+    private void execute(MuResponse response, AsyncHandle handle, Runnable onComplete, Runnable task) {
+        try {
+            resource.generationExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            try {
+                response.status(503);
+                handle.complete();
+            } finally {
+                onComplete.run();
+            }
+        }
+    }
+
+    /**
+     * Sends a document, completing the async handle if one was already started for generation.
+     *
+     * @return true if the document is being written asynchronously, in which case the action is run when the
+     * write is complete
+     */
+    private boolean send(MuRequest request, MuResponse response, AsyncHandle handle, RenderedSpec spec, String format,
+                         boolean negotiated, OpenApiEvents.Response event, Runnable onComplete) {
+        var headers = request.headers();
+        if (spec == null) {
+            response.status(404);
+            finish(handle, event, format, 0);
+            return false;
+        }
+        if (spec.gzipped() != null && MuOpenApiResource.acceptsGzip(headers.get(HeaderNames.ACCEPT_ENCODING))) {
+            spec = spec.gzipped();
+        }
+        var responseHeaders = response.headers();
+        responseHeaders.set(HeaderNames.ETAG, spec.etagHeader());
+        var vary = resource.vary(negotiated);
+        if (vary != null) {
+            responseHeaders.set(HeaderNames.VARY, vary);
+        }
+        var warning = resource.staleWarning();
+        if (warning != null) {
+            responseHeaders.set(HeaderNames.WARNING, warning);
+            responseHeaders.set(HeaderNames.AGE, resource.age());
+        }
+        if (spec.isMatchedBy(headers.get(HeaderNames.IF_NONE_MATCH))) {
+            resource.metrics().notModified(resource.contextId(), format);
+            response.status(304);
+            finish(handle, event, format, 0);
+            return false;
+        }
+        response.status(200);
+        response.contentType(spec.contentType());
+        if (spec.contentEncoding() != null) {
+            responseHeaders.set(HeaderNames.CONTENT_ENCODING, spec.contentEncoding());
+        }
+        responseHeaders.set(HeaderNames.CONTENT_LENGTH, spec.length());
+        if (request.method() == Method.HEAD) {
+            finish(handle, event, format, 0);
+            return false;
+        }
+        resource.metrics().served(resource.contextId(), format, spec.length());
+        var asyncHandle = handle != null ? handle : request.handleAsync();
+        asyncHandle.write(spec.content(), error -> {
+            try {
+                if (error == null) {
+                    asyncHandle.complete();
+                } else {
+                    asyncHandle.complete(error);
+                }
+            } finally {
+                onComplete.run();
+            }
+        });
+        event.commit(resource.contextId(), format, spec.length());
+        return true;
+    }
+
+    /**
+     * Streams a tag-filtered document straight to the response without buffering it, for when filtered
+     * documents are not cached. As with {@link MuOpenApiResource}, there is no <code>ETag</code> or
+     * <code>Content-Length</code> as the document is never held in memory.
+     */
+    private void streamFiltered(MuRequest request, MuResponse response, AsyncHandle handle, String format,
+                                SortedSet<String> tags, boolean pretty, boolean negotiated, OpenApiEvents.Response event) throws Exception {
+        var filtered = resource.filteredModel(format, tags);
+        if (filtered == null) {
+            response.status(404);
+            finish(handle, event, format, 0);
+            return;
+        }
+        response.status(200);
+        response.contentType(MuOpenApiResource.contentType(format));
+        var responseHeaders = response.headers();
+        if (negotiated) {
+            responseHeaders.set(HeaderNames.VARY, HeaderNames.ACCEPT);
+        }
+        var warning = resource.staleWarning();
+        if (warning != null) {
+            responseHeaders.set(HeaderNames.WARNING, warning);
+            responseHeaders.set(HeaderNames.AGE, resource.age());
+        }
+        if (request.method() != Method.HEAD) {
+            resource.writeFiltered(filtered, format, pretty, response.outputStream());
+        }
+        finish(handle, event, format, 0);
+    }
+
+    private void finish(AsyncHandle handle, OpenApiEvents.Response event, String format, long size) {
+        if (handle != null) {
+            handle.complete();
+        }
+        event.commit(resource.contextId(), format, size);
+    }
+
+    /**
+     * Gets the media types of the <code>Accept</code> header, most preferred first.
+     */
+    private static List<String> acceptable(Headers headers) {
+        return headers.accept().stream()
+            .sorted(Comparator.comparingDouble(MuOpenApiHandler::quality).reversed())
+            .map(ParameterizedHeaderWithValue::value)
+            .toList();
+    }
+
+    private static double quality(ParameterizedHeaderWithValue value) {
+        var q = value.parameter("q");
+        if (q == null) {
+            return 1.0;
+        }
+        try {
+            return Double.parseDouble(q);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+package io.muserver.muswagger;
+
+import io.muserver.MuRequest;
+import io.muserver.MuResponse;
+import io.swagger.v3.oas.integration.api.OpenApiContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Holds an OpenAPI handler per key, such as a tenant or API version, with a bounded number of keys in memory.
+ *
+ * <p>Each resource keeps its swagger context, models and rendered documents until it is closed, so creating a
+ * resource per tenant without closing it keeps every tenant's documents in memory. This registry closes the
+ * handlers of keys that are evicted, either because the registry is full or because they have been idle, and
+ * creates them again when they are next requested.</p>
+ *
+ * <p>Usage instructions:</p>
+ * <ol>
+ *     <li>Create a registry with {@link MuOpenApiRegistryBuilder#muOpenApiRegistry()}, giving a function that
+ *     creates the resource builder for a key</li>
+ *     <li>Serve each request with {@link #handle(String, MuRequest, MuResponse)}, giving the request's key</li>
+ *     <li>Close the registry when the server stops</li>
+ * </ol>
+ *
+ * <p>Requests served with {@link #handle(String, MuRequest, MuResponse)} hold on to their key's handler, so an
+ * evicted handler is only closed once the responses that are using it have completed. A handler returned by
+ * {@link #get(String)} is not held, and may be closed at any time after its key is evicted.</p>
+ */
+public class MuOpenApiRegistry implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MuOpenApiRegistry.class);
+
+    private final Function<String, MuOpenApiResourceBuilder> resourceFactory;
+    private final int maximumSize;
+    private final long idleTimeoutNanos;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean closed;
+
+    MuOpenApiRegistry(Function<String, MuOpenApiResourceBuilder> resourceFactory, int maximumSize, Duration idleTimeout) {
+        this.resourceFactory = resourceFactory;
+        this.maximumSize = maximumSize;
+        this.idleTimeoutNanos = idleTimeout == null ? 0 : idleTimeout.toNanos();
+    }
+
+    /**
+     * Serves an OpenAPI document with the handler for a key, creating the handler if the key has not been
+     * requested yet or was evicted.
+     *
+     * <p>The handler is not closed until the response is complete, even if its key is evicted meanwhile.</p>
+     *
+     * @param key the key, for example a tenant ID
+     * @param request the request
+     * @param response the response
+     * @return true if the request was for an OpenAPI document, otherwise false
+     * @throws IllegalStateException if the registry is closed, or the resource builder for the key is invalid
+     * @throws Exception if an error occurs while generating the specification
+     * @see MuOpenApiHandler#handle(MuRequest, MuResponse)
+     */
+    public boolean handle(String key, MuRequest request, MuResponse response) throws Exception {
+        var entry = acquire(key);
+        MuOpenApiHandler handler;
+        try {
+            handler = handlerOf(entry);
+        } catch (RuntimeException e) {
+            release(entry);
+            throw e;
+        }
+        return handler.handle(request, response, () -> release(entry));
+    }
+
+    /**
+     * Gets the handler for a key, creating it if the key has not been requested yet or was evicted.
+     *
+     * <p>Idle keys are evicted by this call, and if creating a handler makes the registry exceed its maximum
+     * size then the least recently used key is evicted.</p>
+     *
+     * <p>The handler is built without holding the registry's lock, so requests for other keys are not held up
+     * while a key's documents are generated. Concurrent requests for a new key wait for the same handler.</p>
+     *
+     * <p>The returned handler is closed if its key is evicted, so prefer {@link #handle(String, MuRequest, MuResponse)}
+     * for serving requests.</p>
+     *
+     * @param key the key, for example a tenant ID
+     * @return the handler for the key
+     * @throws IllegalStateException if the registry is closed, or the resource builder for the key is invalid
+     */
+    public MuOpenApiHandler get(String key) {
+        var entry = acquire(key);
+        try {
+            return handlerOf(entry);
+        } finally {
+            release(entry);
+        }
+    }
+
+    /**
+     * Gets or adds the entry for a key and marks it as in use, building its handler if the entry was added.
+     */
+    private Entry acquire(String key) {
+        var evicted = new ArrayList<Entry>();
+        Entry entry;
+        boolean created = false;
+        synchronized (entries) {
+            if (closed) {
+                throw new IllegalStateException("The OpenAPI registry has been closed");
+            }
+            long now = System.nanoTime();
+            evictIdle(now, evicted);
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                created = true;
+                entries.put(key, entry);
+                var eldest = entries.entrySet().iterator();
+                while (entries.size() > maximumSize) {
+                    evict(eldest.next().getValue(), evicted);
+                    eldest.remove();
+                }
+            }
+            entry.lastAccess = now;
+            entry.users++;
+        }
+        closeAll(evicted);
+        if (created) {
+            try {
+                entry.handler.complete(create(key));
+            } catch (RuntimeException e) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                entry.handler.completeExceptionally(e);
+                release(entry);
+                throw e;
+            }
+        }
+        return entry;
+    }
+
+    private static MuOpenApiHandler handlerOf(Entry entry) {
+        try {
+            return entry.handler.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Marks an entry as no longer in use by a request, closing its handler if it has been evicted and this was
+     * the last request using it.
+     */
+    private void release(Entry entry) {
+        boolean close;
+        synchronized (entries) {
+            close = --entry.users == 0 && entry.evicted;
+        }
+        if (close) {
+            closeAll(List.of(entry));
+        }
+    }
+
+    /**
+     * Marks an entry that has been removed as evicted, adding it to the handlers to close if no request is
+     * using it. Otherwise it is closed when the last request using it is complete.
+     */
+    private static void evict(Entry entry, List<Entry> evicted) {
+        entry.evicted = true;
+        if (entry.users == 0) {
+            evicted.add(entry);
+        }
+    }
+
+    private MuOpenApiHandler create(String key) {
+        var builder = resourceFactory.apply(key);
+        if (builder.contextId() == null) {
+            builder.withContextId(OpenApiContext.OPENAPI_CONTEXT_ID_PREFIX + "mu-registry." + key);
+        }
+        return builder.buildHandler();
+    }
+
+    /**
+     * Evicts and closes the handlers of keys that have been idle for longer than the idle timeout.
+     */
+    public void evictIdle() {
+        var evicted = new ArrayList<Entry>();
+        synchronized (entries) {
+            evictIdle(System.nanoTime(), evicted);
+        }
+        closeAll(evicted);
+    }
+
+    private void evictIdle(long now, List<Entry> evicted) {
+        if (idleTimeoutNanos == 0) {
+            return;
+        }
+        // in access order, so the idle keys are first
+        var iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (now - entry.lastAccess < idleTimeoutNanos) {
+                break;
+            }
+            evict(entry, evicted);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Removes and closes the handler for a key, if it exists. It is created again if the key is requested.
+     *
+     * @param key the key
+     */
+    public void remove(String key) {
+        var evicted = new ArrayList<Entry>();
+        synchronized (entries) {
+            var entry = entries.remove(key);
+            if (entry != null) {
+                evict(entry, evicted);
+            }
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Gets the number of keys that currently have a handler.
+     *
+     * @return the number of keys held in memory
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Closes all the handlers. The registry cannot be used afterwards.
+     *
+     * <p>Handlers that are serving requests through {@link #handle(String, MuRequest, MuResponse)} are closed
+     * when those responses are complete.</p>
+     */
+    @Override
+    public void close() {
+        var evicted = new ArrayList<Entry>();
+        synchronized (entries) {
+            closed = true;
+            entries.values().forEach(entry -> evict(entry, evicted));
+            entries.clear();
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Closes the handlers of evicted entries, waiting until a handler that is still being built has been built.
+     */
+    private static void closeAll(List<Entry> evicted) {
+        for (Entry entry : evicted) {
+            entry.handler.thenAccept(MuOpenApiRegistry::close);
+        }
+    }
+
+    private static void close(MuOpenApiHandler handler) {
+        try {
+            handler.close();
+        } catch (RuntimeException e) {
+            log.warn("Error while closing the OpenAPI handler for " + handler.resource().contextId(), e);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<MuOpenApiHandler> handler = new CompletableFuture<>();
+        private long lastAccess;
+        private int users;
+        private boolean evicted;
+    }
+
+}
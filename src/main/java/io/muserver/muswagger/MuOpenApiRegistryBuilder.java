@@ -0,0 +1,120 @@
+package io.muserver.muswagger;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * A builder for creating {@link MuOpenApiRegistry} instances, which hold an OpenAPI handler per key such as a
+ * tenant or API version.
+ */
+public class MuOpenApiRegistryBuilder {
+
+    private Function<String, MuOpenApiResourceBuilder> resourceFactory;
+    private int maximumSize = 100;
+    private Duration idleTimeout;
+
+    /**
+     * @see #muOpenApiRegistry()
+     */
+    private MuOpenApiRegistryBuilder() {}
+
+    /**
+     * Gets the function that creates the builder for a key.
+     *
+     * @return the resource factory
+     */
+    public Function<String, MuOpenApiResourceBuilder> resourceFactory() {
+        return resourceFactory;
+    }
+
+    /**
+     * Sets the function that creates the resource builder for a key, which is called when a key is first
+     * requested and again if it is requested after being evicted.
+     *
+     * <p>If the returned builder has no context ID then one is set from the key, so that each key has its own
+     * swagger context.</p>
+     *
+     * @param resourceFactory a function that creates a builder for the given key
+     * @return this builder
+     */
+    public MuOpenApiRegistryBuilder withResourceFactory(Function<String, MuOpenApiResourceBuilder> resourceFactory) {
+        this.resourceFactory = resourceFactory;
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of keys that have documents held in memory.
+     *
+     * @return the maximum size
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of keys that have documents held in memory. When another key is requested the
+     * least recently used one is evicted and closed.
+     *
+     * <p>Default is <code>100</code>.</p>
+     *
+     * @param maximumSize the maximum number of keys
+     * @return this builder
+     */
+    public MuOpenApiRegistryBuilder withMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Gets the time after which a key that has not been requested is evicted.
+     *
+     * @return the idle timeout, or null if keys are only evicted when the registry is full
+     */
+    public Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the time after which a key that has not been requested is evicted and closed. Idle keys are evicted
+     * when other keys are requested, or when {@link MuOpenApiRegistry#evictIdle()} is called.
+     *
+     * <p>Default is <code>null</code>, meaning keys are only evicted when the registry is full.</p>
+     *
+     * @param idleTimeout the idle timeout, or null to not evict idle keys
+     * @return this builder
+     */
+    public MuOpenApiRegistryBuilder withIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @return a new builder
+     */
+    public static MuOpenApiRegistryBuilder muOpenApiRegistry() {
+        return new MuOpenApiRegistryBuilder();
+    }
+
+    /**
+     * Builds the {@link MuOpenApiRegistry} instance.
+     *
+     * @return a new registry
+     * @throws IllegalStateException if no resource factory has been set, if the maximum size is less than 1, or if
+     * the idle timeout is not positive
+     */
+    public MuOpenApiRegistry build() {
+        if (resourceFactory == null) {
+            throw new IllegalStateException("No resource factory has been set for the OpenAPI registry");
+        }
+        if (maximumSize < 1) {
+            throw new IllegalStateException("The maximum size must be at least 1 but was " + maximumSize);
+        }
+        if (idleTimeout != null && (idleTimeout.isZero() || idleTimeout.isNegative())) {
+            throw new IllegalStateException("The idle timeout must be positive but was " + idleTimeout);
+        }
+        return new MuOpenApiRegistry(resourceFactory, maximumSize, idleTimeout);
+    }
+
+}
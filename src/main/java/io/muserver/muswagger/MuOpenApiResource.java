@@ -1,19 +1,49 @@
 package io.muserver.muswagger;
 
-import io.muserver.MuRequest;
-import io.swagger.v3.jaxrs2.integration.resources.BaseOpenApiResource;
+import io.swagger.v3.core.util.Json;
 import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.integration.SwaggerConfiguration;
+import io.swagger.v3.oas.integration.api.OpenAPIConfiguration;
 import io.swagger.v3.oas.models.OpenAPI;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A JAX-RS resource that serves the OpenAPI specification for the application.
@@ -33,42 +63,974 @@ import java.util.concurrent.ConcurrentMap;
  *     <li>Build the resource with {@link MuOpenApiResourceBuilder#build()}</li>
  *     <li>Add the resulting resource to your MuServer's {@link io.muserver.rest.RestHandlerBuilder} with the {@link io.muserver.rest.RestHandlerBuilder#addResource(Object...)} method.</li>
  * </ol>
+ *
+ * <p>The specification is rendered once per format and the resulting bytes are cached until {@link #refresh()}
+ * or {@link #invalidate()} is called or resources are added or removed with {@link #addResource(Object)} and
+ * {@link #removeResource(Object)}, so subsequent requests do not re-serialize the document. As each resource is bound to a
+ * single context ID (see {@link MuOpenApiResourceBuilder#withContextId(String)}), the cache is per context.
+ * Concurrent requests for a format that has not been rendered yet wait for a single generation rather than
+ * each generating the document.</p>
+ *
+ * <p>A document containing only some operations can be requested with a <code>tags</code> query parameter,
+ * for example <code>/openapi.json?tags=pet,store</code>, which includes the operations having any of the given
+ * tags along with the schemas they use. The most recently used filtered documents are cached (see
+ * {@link MuOpenApiResourceBuilder#withFilteredDocumentCacheSize(int)}), or if caching is disabled they are
+ * streamed to the response as they are serialized.</p>
+ *
+ * <p>Clients that prefer <code>application/cbor</code> or <code>application/x-jackson-smile</code> in their
+ * <code>Accept</code> header are sent the JSON document in that binary encoding, which is smaller and faster
+ * to parse. Each encoding is rendered from the same model when first requested and then cached.</p>
+ *
+ * <p>JSON is compact unless {@link MuOpenApiResourceBuilder#withPrettyPrint(boolean)} is set, and either variant
+ * can be requested with a <code>pretty</code> query parameter such as <code>/openapi.json?pretty=true</code>.</p>
+ *
+ * <p>Parts of the document can be requested individually using a JSON Pointer after the document name, for
+ * example <code>/openapi.json/components/schemas/Pet</code>. Each part is rendered when first requested, and
+ * the most recently used parts are cached so later requests are served from memory without touching the full
+ * document.</p>
+ *
+ * <p>Each rendered document has a strong <code>ETag</code> based on its content. Requests with a matching
+ * <code>If-None-Match</code> header receive a <code>304 Not Modified</code> response with no body.</p>
+ *
+ * <p>If {@link MuOpenApiResourceBuilder#withPrecompressedGzip(boolean)} is enabled then a gzipped copy of
+ * each document is created when it is cached and sent to clients that accept gzip encoding.</p>
+ *
+ * <p>By default the documents are generated when first requested. See {@link MuOpenApiResourceBuilder#withWarmUpMode(WarmUpMode)}
+ * to generate them at startup instead.</p>
+ *
+ * <p>Generation times, cache use and bytes served can be reported with {@link MuOpenApiResourceBuilder#withMetrics(OpenApiMetrics)}.
+ * The generation phases and requests are also recorded as Java Flight Recorder events in the
+ * <code>Mu Server / OpenAPI</code> category.</p>
  */
 @Path("/openapi.{type:json|yaml}")
-public class MuOpenApiResource extends BaseOpenApiResource {
+public class MuOpenApiResource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MuOpenApiResource.class);
+    private static final List<String> FORMATS = List.of("json", "yaml");
+    private static final Map<String, String> BINARY_FORMATS = Map.of("application/cbor", "cbor", "application/x-jackson-smile", "smile");
+    private static final int FRAGMENT_CACHE_SIZE = 256;
 
-    private final Application application;
-    private final ConcurrentMap<String, String> initialConfig;
-    private final ConcurrentMap<String, Object> containerAttributes;
+    private final ApplicationAdaptor application;
+    private final OpenApiGenerator generator;
+    private final OpenApiMetrics metrics;
+    private final boolean precompressedGzip;
+    private final int filteredDocumentCacheSize;
+    private final boolean prettyPrint;
+    private final Executor generationExecutor;
+    private final AtomicLong snapshotVersions = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot;
+    private final AtomicInteger refreshesInProgress = new AtomicInteger();
+    private final AtomicLong failedVersion = new AtomicLong();
+    private ScheduledExecutorService refreshScheduler;
+    private final CompletableFuture<Void> warmUp = new CompletableFuture<>();
+    private volatile boolean pregenerated;
+    private volatile RenderedSpec pregeneratedJson;
+    private volatile boolean closed;
 
-    MuOpenApiResource(Collection<Object> singletons, ConcurrentMap<String, String> initialConfig, ConcurrentMap<String, Object> containerAttributes, SwaggerConfiguration swaggerConfig) {
-        this.application = new ApplicationAdaptor(Set.copyOf(singletons));
-        this.initialConfig = initialConfig;
-        this.containerAttributes = containerAttributes;
-        setOpenApiConfiguration(swaggerConfig);
+    MuOpenApiResource(Collection<Object> singletons, Collection<Class<?>> classes, String contextId, OpenAPIConfiguration openApiConfiguration, int generationParallelism, boolean precompressedGzip, OpenApiMetrics metrics, int filteredDocumentCacheSize, boolean prettyPrint, Executor generationExecutor, SchemaCache schemaCache) {
+        this.application = new ApplicationAdaptor(Set.copyOf(singletons), Set.copyOf(classes));
+        this.generator = new OpenApiGenerator(contextId, application, openApiConfiguration, generationParallelism, metrics, schemaCache);
+        this.metrics = metrics;
+        this.filteredDocumentCacheSize = filteredDocumentCacheSize;
+        this.prettyPrint = prettyPrint;
+        this.generationExecutor = generationExecutor;
+        this.snapshot = new AtomicReference<>(newSnapshot(this::initialModel));
+        this.precompressedGzip = precompressedGzip;
     }
 
     // why javadoc? because the javadoc generator generates warnings for public methods on public classes like this
     /**
      * Handles GET requests to retrieve the OpenAPI specification in the requested format (JSON or YAML).
      *
+     * <p>Requests for JSON with an <code>Accept</code> header preferring <code>application/cbor</code> or
+     * <code>application/x-jackson-smile</code> get the same document in that binary encoding instead.</p>
+     *
+     * @param asyncResponse the response, which is resumed with the OpenAPI specification, or a 304 if the
+     *                      client's copy is current
      * @param headers request headers
-     * @param uriInfo requested URI information
      * @param type the format type (json or yaml)
-     * @param muRequest the MuRequest
-     * @return a Response containing the OpenAPI specification
-     * @throws Exception if an error occurs while generating the specification
+     * @param tags an optional comma separated list of tags, in which case only the operations with at least one
+     *             of the tags, and the schemas they use, are included
+     * @param pretty an optional value of <code>true</code> to get indented JSON, or <code>false</code> to get
+     *               compact JSON, overriding {@link MuOpenApiResourceBuilder#withPrettyPrint(boolean)}
      */
     @GET
+    @Produces({MediaType.APPLICATION_JSON, "application/yaml", "application/cbor", "application/x-jackson-smile"})
+    @Operation(hidden = true)
+    public void getOpenApi(@Suspended AsyncResponse asyncResponse,
+                           @Context HttpHeaders headers,
+                           @PathParam("type") String type,
+                           @QueryParam("tags") String tags,
+                           @QueryParam("pretty") Boolean pretty) {
+        var event = new OpenApiEvents.Response();
+        event.begin();
+        var tagSet = parseTags(tags);
+        var negotiated = "json".equals(type);
+        var format = negotiated ? negotiate(headers.getAcceptableMediaTypes().stream().map(m -> m.getType() + "/" + m.getSubtype()).toList()) : type;
+        var indent = pretty(format, pretty);
+        if (!tagSet.isEmpty() && filteredDocumentCacheSize == 0) {
+            complete(asyncResponse, isCached(format, tagSet, indent), () -> streamFiltered(format, tagSet, indent, negotiated, event));
+        } else {
+            complete(asyncResponse, isCached(format, tagSet, indent), () -> respond(headers, format, document(format, tagSet, indent), negotiated, event));
+        }
+    }
+
+    /**
+     * Handles GET requests for a single part of the OpenAPI specification, such as
+     * <code>/openapi.json/components/schemas/Pet</code> or <code>/openapi.yaml/paths/~1pet~1{petId}</code>.
+     *
+     * <p>The part of the URL after the document name is a JSON Pointer into the document. Path items, the
+     * operations of path items, and named components can be requested.</p>
+     *
+     * @param asyncResponse the response, which is resumed with the part of the specification, a 404 if there is
+     *                      no such part, or a 304 if the client's copy is current
+     * @param headers request headers
+     * @param type the format type (json or yaml)
+     * @param pointer the JSON Pointer of the part to get, without the leading slash
+     * @param pretty an optional value of <code>true</code> to get indented JSON, or <code>false</code> to get
+     *               compact JSON, overriding {@link MuOpenApiResourceBuilder#withPrettyPrint(boolean)}
+     */
+    @GET
+    @Path("{pointer:.+}")
     @Produces({MediaType.APPLICATION_JSON, "application/yaml"})
     @Operation(hidden = true)
-    public Response getOpenApi(@Context HttpHeaders headers,
-                               @Context UriInfo uriInfo,
-                               @PathParam("type") String type,
-                               @Context MuRequest muRequest) throws Exception {
-        var servletContextAdaptor = new ServletContextAdaptor(muRequest, initialConfig, containerAttributes);
-        var config = new ServletConfigAdaptor(initialConfig, servletContextAdaptor);
-        return super.getOpenApi(headers, config, application, uriInfo, type);
+    public void getFragment(@Suspended AsyncResponse asyncResponse,
+                            @Context HttpHeaders headers,
+                            @PathParam("type") String type,
+                            @PathParam("pointer") String pointer,
+                            @QueryParam("pretty") Boolean pretty) {
+        var event = new OpenApiEvents.Response();
+        event.begin();
+        var indent = pretty(type, pretty);
+        complete(asyncResponse, isFragmentCached(type, "/" + pointer, indent), () -> respond(headers, type, fragment(type, "/" + pointer, indent), false, event));
+    }
+
+    /**
+     * Resumes a suspended response. Cached documents are sent from the request thread, and otherwise the
+     * document is generated on the generation executor so that request threads never wait for generation.
+     * If the executor rejects the task, the response is a <code>503</code>.
+     */
+    private void complete(AsyncResponse asyncResponse, boolean cached, Callable<Response> responder) {
+        if (closed) {
+            asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        } else if (cached) {
+            resume(asyncResponse, responder);
+        } else {
+            try {
+                generationExecutor.execute(() -> resume(asyncResponse, responder));
+            } catch (RejectedExecutionException e) {
+                asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+            }
+        }
+    }
+
+    private static void resume(AsyncResponse asyncResponse, Callable<Response> responder) {
+        try {
+            asyncResponse.resume(responder.call());
+        } catch (Throwable e) {
+            asyncResponse.resume(e);
+        }
+    }
+
+    /**
+     * Checks whether a document can be served without generating or rendering anything. Filtered documents are
+     * never cached when the filtered document cache size is 0, as filtering the model is itself expensive.
+     */
+    boolean isCached(String format, SortedSet<String> tags, boolean pretty) {
+        var snapshot = this.snapshot.get();
+        if (tags.isEmpty()) {
+            return isDone(snapshot.specs.get(variant(format, pretty)));
+        }
+        return filteredDocumentCacheSize > 0 && isDone(snapshot.filtered.get(filterKey(format, pretty, tags)));
+    }
+
+    /**
+     * Checks whether a part of the document can be served without rendering it.
+     */
+    boolean isFragmentCached(String type, String pointer, boolean pretty) {
+        return isDone(snapshot.get().fragments.get(variant(type, pretty) + pointer));
+    }
+
+    private static boolean isDone(CompletableFuture<?> future) {
+        return future != null && future.isDone();
+    }
+
+    Executor generationExecutor() {
+        return generationExecutor;
+    }
+
+    /**
+     * Gets a whole or tag-filtered document, rendering it if it is not cached.
+     *
+     * @return the document, or null if swagger did not produce one
+     */
+    RenderedSpec document(String format, SortedSet<String> tags, boolean pretty) throws Exception {
+        return tags.isEmpty() ? renderedSpec(snapshot.get(), format, pretty) : filteredSpec(format, tags, pretty);
+    }
+
+    private Response respond(HttpHeaders headers, String type, RenderedSpec spec, boolean negotiated, OpenApiEvents.Response event) {
+        if (spec == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        if (spec.gzipped() != null && acceptsGzip(headers.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            spec = spec.gzipped();
+        }
+        Response.ResponseBuilder builder;
+        long size = 0;
+        if (spec.isMatchedBy(headers.getHeaderString(HttpHeaders.IF_NONE_MATCH))) {
+            metrics.notModified(generator.contextId(), type);
+            builder = Response.notModified(spec.etag());
+        } else {
+            var entity = spec.entity();
+            builder = Response.ok(entity, spec.contentType()).tag(spec.etag());
+            if (entity instanceof StreamingOutput) {
+                // the size of a streamed entity is unknown to JAX-RS, which would otherwise send it chunked
+                builder.header(HttpHeaders.CONTENT_LENGTH, spec.length());
+            }
+            if (spec.contentEncoding() != null) {
+                builder.encoding(spec.contentEncoding());
+            }
+            size = spec.length();
+            metrics.served(generator.contextId(), type, size);
+        }
+        var vary = vary(negotiated);
+        if (vary != null) {
+            builder.header(HttpHeaders.VARY, vary);
+        }
+        var warning = staleWarning();
+        if (warning != null) {
+            builder.header("Warning", warning);
+            builder.header("Age", age());
+        }
+        var response = builder.build();
+        event.commit(generator.contextId(), type, size);
+        return response;
+    }
+
+    String contextId() {
+        return generator.contextId();
+    }
+
+    OpenApiMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the value of the <code>Vary</code> response header, or null if responses do not vary.
+     */
+    String vary(boolean negotiated) {
+        if (negotiated && precompressedGzip) {
+            return HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+        } else if (negotiated) {
+            return HttpHeaders.ACCEPT;
+        } else if (precompressedGzip) {
+            return HttpHeaders.ACCEPT_ENCODING;
+        }
+        return null;
+    }
+
+    /**
+     * Gets a spec from the current snapshot, rendering and caching it if this is the first time it was requested.
+     */
+    private RenderedSpec renderedSpec(String type) throws Exception {
+        return renderedSpec(snapshot.get(), type, pretty(type, null));
+    }
+
+    /**
+     * Gets a spec from a snapshot, rendering and caching it if this is the first time it was requested.
+     *
+     * <p>Only one thread renders a given format at a time: any other threads requesting the same format
+     * while it is being rendered wait for, and share, that result. If rendering fails or produces no
+     * document then nothing is cached so that the next request tries again. Pretty and compact JSON are cached
+     * separately.</p>
+     *
+     * @return the rendered spec, or null if swagger did not produce a document
+     */
+    private RenderedSpec renderedSpec(Snapshot snapshot, String type, boolean pretty) throws Exception {
+        var key = variant(type, pretty);
+        var future = snapshot.specs.get(key);
+        if (future == null) {
+            var newFuture = new CompletableFuture<RenderedSpec>();
+            future = snapshot.specs.putIfAbsent(key, newFuture);
+            if (future == null) {
+                metrics.cacheMiss(generator.contextId(), type);
+                try {
+                    var spec = render(snapshot, type, pretty);
+                    if (spec == null) {
+                        snapshot.specs.remove(key, newFuture);
+                    }
+                    newFuture.complete(spec);
+                    return spec;
+                } catch (Throwable e) {
+                    snapshot.specs.remove(key, newFuture);
+                    newFuture.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        countLookup(future, type);
+        return await(future);
+    }
+
+    /**
+     * Reports a lookup that found an entry as a hit if the entry is ready, or as a miss if the request has to
+     * wait for another request to render it.
+     */
+    private void countLookup(CompletableFuture<?> future, String type) {
+        if (future.isDone()) {
+            metrics.cacheHit(generator.contextId(), type);
+        } else {
+            metrics.cacheMiss(generator.contextId(), type);
+        }
+    }
+
+    /**
+     * Waits for a document or model that another request is producing, throwing the exception it failed with.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private RenderedSpec render(Snapshot snapshot, String type, boolean pretty) throws Exception {
+        var model = snapshot.model();
+        if (model == null) {
+            return null;
+        }
+        var document = generator.serialize(model, type, pretty);
+        return RenderedSpec.create(document, contentType(type), precompressedGzip);
+    }
+
+    /**
+     * Gets a part of the document by its JSON Pointer from the current snapshot's cache, rendering it if it is
+     * not cached. Only the requested parts are rendered, and as with whole documents, concurrent requests for
+     * the same part wait for one rendering. Pointers that are not in the document are not cached.
+     *
+     * @return the part, or null if there is no such part
+     */
+    RenderedSpec fragment(String type, String pointer, boolean pretty) throws Exception {
+        var snapshot = this.snapshot.get();
+        var key = variant(type, pretty) + pointer;
+        var future = snapshot.fragments.get(key);
+        if (future == null) {
+            var fragments = snapshot.fragmentIndex();
+            var fragment = fragments == null ? null : fragments.get(pointer);
+            if (fragment == null) {
+                return null;
+            }
+            var newFuture = new CompletableFuture<RenderedSpec>();
+            future = snapshot.fragments.putIfAbsent(key, newFuture);
+            if (future == null) {
+                metrics.cacheMiss(generator.contextId(), type);
+                try {
+                    var document = generator.serializeFragment(fragment, type, pretty);
+                    var spec = RenderedSpec.create(document, contentType(type), precompressedGzip);
+                    newFuture.complete(spec);
+                    return spec;
+                } catch (Throwable e) {
+                    snapshot.fragments.remove(key, newFuture);
+                    newFuture.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        countLookup(future, type);
+        return await(future);
+    }
+
+    /**
+     * Gets a tag-filtered spec from the current snapshot's cache, rendering it from the snapshot's model if it
+     * is not cached. As with whole documents, concurrent requests for the same filter wait for one rendering.
+     */
+    private RenderedSpec filteredSpec(String type, SortedSet<String> tags, boolean pretty) throws Exception {
+        var snapshot = this.snapshot.get();
+        var key = filterKey(type, pretty, tags);
+        var future = snapshot.filtered.get(key);
+        if (future == null) {
+            var newFuture = new CompletableFuture<RenderedSpec>();
+            future = snapshot.filtered.putIfAbsent(key, newFuture);
+            if (future == null) {
+                metrics.cacheMiss(generator.contextId(), type);
+                try {
+                    var model = snapshot.model();
+                    RenderedSpec spec = null;
+                    if (model != null) {
+                        var document = generator.serialize(TagFilter.filter(model, tags), type, pretty);
+                        spec = RenderedSpec.create(document, contentType(type), precompressedGzip);
+                    } else {
+                        snapshot.filtered.remove(key, newFuture);
+                    }
+                    newFuture.complete(spec);
+                    return spec;
+                } catch (Throwable e) {
+                    snapshot.filtered.remove(key, newFuture);
+                    newFuture.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        countLookup(future, type);
+        return await(future);
+    }
+
+    /**
+     * Streams a tag-filtered document straight to the response without buffering it, for when filtered
+     * documents are not cached. As the document is not held in memory there is no <code>ETag</code>.
+     */
+    private Response streamFiltered(String type, SortedSet<String> tags, boolean pretty, boolean negotiated, OpenApiEvents.Response event) throws Exception {
+        var filtered = filteredModel(type, tags);
+        if (filtered == null) {
+            event.commit(generator.contextId(), type, 0);
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        StreamingOutput entity = out -> {
+            try {
+                writeFiltered(filtered, type, pretty, out);
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error writing OpenAPI document", e);
+            }
+        };
+        event.commit(generator.contextId(), type, 0);
+        var builder = Response.ok(entity, contentType(type));
+        if (negotiated) {
+            builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        var warning = staleWarning();
+        if (warning != null) {
+            builder.header("Warning", warning);
+            builder.header("Age", age());
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return true if tag-filtered documents are streamed rather than cached
+     */
+    boolean streamsFilteredDocuments() {
+        return filteredDocumentCacheSize == 0;
+    }
+
+    /**
+     * Filters the current model by tags for a document that is streamed rather than cached.
+     *
+     * @return the filtered model, or null if swagger did not produce a model
+     */
+    OpenAPI filteredModel(String type, SortedSet<String> tags) throws Exception {
+        var model = snapshot.get().model();
+        if (model == null) {
+            return null;
+        }
+        metrics.cacheMiss(generator.contextId(), type);
+        return TagFilter.filter(model, tags);
+    }
+
+    /**
+     * Writes a model from {@link #filteredModel(String, SortedSet)} to a stream.
+     */
+    void writeFiltered(OpenAPI filtered, String type, boolean pretty, OutputStream out) throws Exception {
+        generator.writeTo(filtered, type, pretty, out);
+    }
+
+    /**
+     * Gets whether a document should be indented, which only applies to JSON as YAML is always indented.
+     */
+    boolean pretty(String type, Boolean requested) {
+        return "json".equals(type) && (requested == null ? prettyPrint : requested);
+    }
+
+    /**
+     * Gets the cache key for a format, with pretty JSON cached separately from compact JSON.
+     */
+    private static String variant(String type, boolean pretty) {
+        return pretty ? type + "+pretty" : type;
+    }
+
+    private static String filterKey(String type, boolean pretty, SortedSet<String> tags) {
+        return variant(type, pretty) + ":" + String.join(",", tags);
+    }
+
+    static SortedSet<String> parseTags(String tags) {
+        var set = new TreeSet<String>();
+        if (tags != null) {
+            for (String tag : tags.split(",")) {
+                if (!tag.isBlank()) {
+                    set.add(tag.trim());
+                }
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Picks the encoding of the JSON document from the <code>Accept</code> header, so that clients can ask for a
+     * binary encoding at the same URL. The most preferred type that is either JSON or binary is used, with
+     * wildcards meaning JSON.
+     *
+     * @param acceptable the accepted media types without parameters, most preferred first
+     */
+    static String negotiate(List<String> acceptable) {
+        for (String accepted : acceptable) {
+            var mediaType = accepted.toLowerCase(Locale.ROOT);
+            if (mediaType.endsWith("/*")) {
+                return "json";
+            }
+            var binary = BINARY_FORMATS.get(mediaType);
+            if (binary != null) {
+                return binary;
+            }
+            if (MediaType.APPLICATION_JSON.equals(mediaType)) {
+                return "json";
+            }
+        }
+        return "json";
+    }
+
+    static String contentType(String type) {
+        return switch (type) {
+            case "yaml" -> "application/yaml";
+            case "cbor" -> "application/cbor";
+            case "smile" -> "application/x-jackson-smile";
+            default -> MediaType.APPLICATION_JSON;
+        };
+    }
+
+    /**
+     * Gets the model for the first snapshot, which is parsed from the JSON document when the documents are
+     * pre-generated so that filtered documents can still be created.
+     */
+    private OpenAPI initialModel() throws Exception {
+        if (pregenerated) {
+            var json = pregeneratedJson;
+            var out = new ByteArrayOutputStream(json.length());
+            json.writeTo(out);
+            return Json.mapper().readValue(out.toByteArray(), OpenAPI.class);
+        }
+        return generator.read(false);
+    }
+
+    /**
+     * Adds an already rendered document to the cache, so that it is served without generation.
+     *
+     * <p>A JSON document is cached as the pretty or compact variant according to how it is actually formatted,
+     * so that requests for the other variant get a document rendered with the requested formatting.</p>
+     */
+    void preload(String type, RenderedSpec spec) {
+        pregenerated = true;
+        var pretty = false;
+        if ("json".equals(type)) {
+            pregeneratedJson = spec;
+            pretty = isIndented(spec.content());
+        }
+        snapshot.get().specs.put(variant(type, pretty), CompletableFuture.completedFuture(spec));
+    }
+
+    /**
+     * Checks whether a JSON document has line breaks between its values. Compact JSON has no line breaks,
+     * other than any trailing whitespace, as line breaks within strings are escaped.
+     */
+    private static boolean isIndented(ByteBuffer json) {
+        boolean lineBreak = false;
+        while (json.hasRemaining()) {
+            byte b = json.get();
+            if (b == '\n') {
+                lineBreak = true;
+            } else if (lineBreak && b != ' ' && b != '\t' && b != '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discards the generated documents so that they are generated again, from a fresh read of the resources,
+     * when they are next requested.
+     *
+     * <p>Requests that are already being served are not affected. Use {@link #refresh()} instead to keep
+     * serving the current documents until the new ones are ready.</p>
+     *
+     * @throws IllegalStateException if this resource serves pre-generated documents
+     */
+    public void invalidate() {
+        checkNotPregenerated();
+        swapIn(newSnapshot(() -> generator.read(true)));
+    }
+
+    /**
+     * Regenerates the documents from a fresh read of the resources on a background thread, and then swaps
+     * them in.
+     *
+     * <p>Until the new documents are ready the current ones continue to be served, and requests never block
+     * on, or see part of, the new generation. If generation fails then the current documents are kept. If
+     * several refreshes overlap, the documents from the most recently started one are kept.</p>
+     *
+     * <p>While a refresh is in progress, responses have a <code>Warning: 110</code> header, and if the most
+     * recent refresh failed they have a <code>Warning: 111</code> header until a refresh succeeds. These
+     * responses also have an <code>Age</code> header giving the seconds since the served documents were
+     * generated. Refreshes can also be run periodically with
+     * {@link MuOpenApiResourceBuilder#withRefreshInterval(Duration)}.</p>
+     *
+     * @return a stage that completes when the new documents are being served, or completes exceptionally if
+     * generation failed
+     * @throws IllegalStateException if this resource serves pre-generated documents
+     */
+    public CompletionStage<Void> refresh() {
+        checkNotPregenerated();
+        return regenerate(newSnapshot(() -> generator.read(true)));
+    }
+
+    /**
+     * Adds a JAX-RS resource to the documentation, and regenerates the documents in the background.
+     *
+     * <p>Each resource class is read into its own partial model which is kept, so adding a resource only
+     * requires reading the new resource's class, after which the partial models are merged. The first change
+     * after the documents were generated in full reads each class once to create the partial models. The current
+     * documents are served until the new ones are ready, as with {@link #refresh()}.</p>
+     *
+     * @param resource an instance of a class with a <code>@Path</code> annotation
+     * @return a stage that completes when the new documents are being served, or completes exceptionally if
+     * generation failed
+     * @throws IllegalStateException if this resource serves pre-generated documents
+     */
+    public CompletionStage<Void> addResource(Object resource) {
+        checkNotPregenerated();
+        if (!application.addSingleton(resource)) {
+            return CompletableFuture.completedStage(null);
+        }
+        return regenerate(newSnapshot(generator::readIncrementally));
+    }
+
+    /**
+     * Removes a JAX-RS resource from the documentation, and regenerates the documents in the background.
+     *
+     * <p>As with {@link #addResource(Object)}, the partial models of the remaining resource classes are merged
+     * without reading them again.</p>
+     *
+     * @param resource a resource that was given to the builder or to {@link #addResource(Object)}
+     * @return a stage that completes when the new documents are being served, or completes exceptionally if
+     * generation failed
+     * @throws IllegalStateException if this resource serves pre-generated documents
+     */
+    public CompletionStage<Void> removeResource(Object resource) {
+        checkNotPregenerated();
+        if (!application.removeSingleton(resource)) {
+            return CompletableFuture.completedStage(null);
+        }
+        return regenerate(newSnapshot(generator::readIncrementally));
+    }
+
+    private Snapshot newSnapshot(Callable<OpenAPI> modelReader) {
+        return new Snapshot(snapshotVersions.incrementAndGet(), modelReader, filteredDocumentCacheSize);
+    }
+
+    /**
+     * Renders a snapshot on a background thread and then swaps it in.
+     */
+    private CompletionStage<Void> regenerate(Snapshot next) {
+        var result = new CompletableFuture<Void>();
+        refreshesInProgress.incrementAndGet();
+        try {
+            generationExecutor.execute(() -> {
+                try {
+                    renderAll(next);
+                    swapIn(next);
+                    result.complete(null);
+                } catch (Throwable e) {
+                    log.warn("Error while refreshing the OpenAPI documents. The previous documents are still being served.", e);
+                    failedVersion.accumulateAndGet(next.version, Math::max);
+                    result.completeExceptionally(e);
+                } finally {
+                    refreshesInProgress.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshesInProgress.decrementAndGet();
+            throw e;
+        }
+        return result.minimalCompletionStage();
+    }
+
+    /**
+     * Refreshes the documents at a fixed interval, skipping a refresh if the previous one has not finished.
+     */
+    void scheduleRefreshes(Duration interval) {
+        refreshScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("mu-openapi-refresh-scheduler").daemon().factory());
+        refreshScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (refreshesInProgress.get() == 0) {
+                    refresh();
+                }
+            } catch (Exception e) {
+                log.warn("Could not start a scheduled refresh of the OpenAPI documents", e);
+            }
+        }, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the value of the <code>Warning</code> response header, which is set when the documents being served
+     * may be out of date because a refresh is in progress or the most recent refresh failed.
+     *
+     * @return the warning, or null if the documents are current
+     */
+    String staleWarning() {
+        if (failedVersion.get() > snapshot.get().version) {
+            return "111 - \"Revalidation Failed\"";
+        }
+        if (refreshesInProgress.get() > 0) {
+            return "110 - \"Response is Stale\"";
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of seconds since the documents being served were generated
+     */
+    long age() {
+        var generatedAt = snapshot.get().generatedAt;
+        return generatedAt == 0 ? 0 : Math.max(0, (System.currentTimeMillis() - generatedAt) / 1000);
+    }
+
+    private void swapIn(Snapshot next) {
+        snapshot.accumulateAndGet(next, (current, candidate) -> candidate.version > current.version ? candidate : current);
+    }
+
+    /**
+     * Stops scheduled refreshes and discards the cached documents, models and swagger context of this resource.
+     * If this is the last open resource using a {@link SchemaCache}, the cache is cleared.
+     *
+     * <p>Call this when the resource is no longer served, for example when resources are created per tenant.
+     * Requests to a closed resource get a <code>503</code> response.</p>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdownNow();
+        }
+        // the highest version, so that a regeneration that is still running is never swapped in
+        snapshot.set(new Snapshot(Long.MAX_VALUE, () -> null, 0));
+        generator.close();
+    }
+
+    /**
+     * @return true if {@link #close()} has been called
+     */
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void checkNotPregenerated() {
+        if (pregenerated) {
+            throw new IllegalStateException("Pre-generated OpenAPI documents cannot be regenerated");
+        }
+    }
+
+    /**
+     * Writes the OpenAPI document in the given format to an output stream, generating it first if needed.
+     *
+     * <p>This can be used to export the document, for example to generate it at build time.</p>
+     *
+     * @param type the format type (json or yaml)
+     * @param out the stream to write to, which is not closed by this method
+     * @throws IllegalArgumentException if the type is not json or yaml
+     * @throws IOException if writing to the stream fails
+     * @throws Exception if an error occurs while generating the specification
+     */
+    public void writeDocument(String type, OutputStream out) throws Exception {
+        if (!FORMATS.contains(type)) {
+            throw new IllegalArgumentException("Unsupported OpenAPI document type " + type + " - must be one of " + FORMATS);
+        }
+        var spec = renderedSpec(type);
+        if (spec == null) {
+            throw new IllegalStateException("No OpenAPI document was generated");
+        }
+        spec.writeTo(out);
+    }
+
+    void warmUp(WarmUpMode mode) {
+        switch (mode) {
+            case EAGER -> {
+                try {
+                    renderAll();
+                } catch (Exception e) {
+                    warmUp.completeExceptionally(e);
+                    throw new IllegalStateException("Error while generating the OpenAPI documents", e);
+                }
+                warmUp.complete(null);
+            }
+            case BACKGROUND -> generationExecutor.execute(() -> {
+                try {
+                    renderAll();
+                    warmUp.complete(null);
+                } catch (Throwable e) {
+                    log.error("Error while generating the OpenAPI documents in the background. They will be generated on request instead.", e);
+                    warmUp.completeExceptionally(e);
+                }
+            });
+            case LAZY -> warmUp.complete(null);
+        }
+    }
+
+    private void renderAll() throws Exception {
+        renderAll(snapshot.get());
+    }
+
+    private void renderAll(Snapshot snapshot) throws Exception {
+        for (String format : FORMATS) {
+            renderedSpec(snapshot, format, pretty(format, null));
+        }
+    }
+
+    /**
+     * Gets a completion stage that completes once the warm up specified by {@link MuOpenApiResourceBuilder#withWarmUpMode(WarmUpMode)}
+     * has finished.
+     *
+     * <p>When using {@link WarmUpMode#LAZY} there is no warm up, so the returned stage is already complete.
+     * If warm up failed then the stage completes exceptionally, and the documents will be generated
+     * when they are requested.</p>
+     *
+     * @return a stage that completes when warm up is done
+     */
+    public CompletionStage<Void> ready() {
+        return warmUp.minimalCompletionStage();
+    }
+
+    /**
+     * Returns whether the warm up specified by {@link MuOpenApiResourceBuilder#withWarmUpMode(WarmUpMode)} has
+     * completed successfully.
+     *
+     * @return true if warm up has finished without error
+     * @see #ready()
+     */
+    public boolean isReady() {
+        return warmUp.isDone() && !warmUp.isCompletedExceptionally();
+    }
+
+    /**
+     * Checks whether an <code>Accept-Encoding</code> header allows gzip. An explicit <code>gzip</code> entry takes
+     * precedence over <code>*</code>, so <code>*, gzip;q=0</code> does not allow it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            var bits = part.split(";");
+            var coding = bits[0].trim();
+            if (coding.equalsIgnoreCase("gzip")) {
+                return hasPositiveQuality(bits);
+            } else if (coding.equals("*") && wildcard == null) {
+                wildcard = hasPositiveQuality(bits);
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static boolean hasPositiveQuality(String[] codingAndParams) {
+        for (int i = 1; i < codingAndParams.length; i++) {
+            var param = codingAndParams[i].trim();
+            if (param.startsWith("q=") || param.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim()) > 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The documents generated from one read of the resources. Each format is rendered when first needed,
+     * but always from the same model.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final Callable<OpenAPI> modelReader;
+        private final ConcurrentMap<String, CompletableFuture<RenderedSpec>> specs = new ConcurrentHashMap<>();
+        private final Map<String, CompletableFuture<RenderedSpec>> filtered;
+        private final Map<String, CompletableFuture<RenderedSpec>> fragments = lruCache(FRAGMENT_CACHE_SIZE);
+        private volatile Map<String, Object> fragmentIndex;
+        private final AtomicReference<CompletableFuture<OpenAPI>> model = new AtomicReference<>();
+        private volatile long generatedAt;
+
+        private Snapshot(long version, Callable<OpenAPI> modelReader, int filteredCacheSize) {
+            this.version = version;
+            this.modelReader = modelReader;
+            this.filtered = lruCache(filteredCacheSize);
+        }
+
+        private static Map<String, CompletableFuture<RenderedSpec>> lruCache(int maximumSize) {
+            return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<RenderedSpec>> eldest) {
+                    return size() > maximumSize;
+                }
+            });
+        }
+
+        /**
+         * Gets the model objects of the parts of the document, keyed by JSON Pointer, reading the model if it
+         * has not been read. The index only refers to the model, so it is cheap to build and to hold.
+         *
+         * @return the index, or null if swagger did not produce a model
+         */
+        private Map<String, Object> fragmentIndex() throws Exception {
+            var index = fragmentIndex;
+            if (index == null) {
+                var model = model();
+                if (model == null) {
+                    return null;
+                }
+                index = FragmentIndex.fragments(model);
+                fragmentIndex = index;
+            }
+            return index;
+        }
+
+        private boolean hasModel() {
+            var future = model.get();
+            return future != null && future.isDone() && !future.isCompletedExceptionally();
+        }
+
+        /**
+         * Gets the model, reading it if it has not been read. Concurrent callers wait for the same read, which
+         * is retried by the next caller if it fails or produces no model.
+         */
+        private OpenAPI model() throws Exception {
+            var future = model.get();
+            if (future == null) {
+                var newFuture = new CompletableFuture<OpenAPI>();
+                if (model.compareAndSet(null, newFuture)) {
+                    try {
+                        var read = modelReader.call();
+                        generatedAt = System.currentTimeMillis();
+                        if (read == null) {
+                            model.compareAndSet(newFuture, null);
+                        }
+                        newFuture.complete(read);
+                        return read;
+                    } catch (Throwable e) {
+                        model.compareAndSet(newFuture, null);
+                        newFuture.completeExceptionally(e);
+                        throw e;
+                    }
+                }
+                future = model.get();
+                if (future == null) {
+                    return model();
+                }
+            }
+            return await(future);
+        }
     }
 
 }
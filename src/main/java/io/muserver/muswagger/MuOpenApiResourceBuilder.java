@@ -1,11 +1,17 @@
 package io.muserver.muswagger;
 
 import io.swagger.v3.oas.integration.SwaggerConfiguration;
-import io.swagger.v3.oas.integration.api.OpenApiContext;
 import io.swagger.v3.oas.models.OpenAPI;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * A builder for creating {@link MuOpenApiResource} instances to serve OpenAPI documentation
@@ -13,9 +19,23 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class MuOpenApiResourceBuilder {
 
+    private static final Map<String, String> FORMAT_CONTENT_TYPES = Map.of("json", "application/json", "yaml", "application/yaml");
+
     private String contextId;
     private OpenAPI openApi;
     private Collection<Object> resources;
+    private Collection<Class<?>> resourceClasses;
+    private String pregeneratedDocuments;
+    private Path pregeneratedDocumentFiles;
+    private boolean precompressedGzip = false;
+    private WarmUpMode warmUpMode = WarmUpMode.LAZY;
+    private int generationParallelism = 1;
+    private OpenApiMetrics metrics = OpenApiMetrics.NO_OP;
+    private int filteredDocumentCacheSize = 32;
+    private boolean prettyPrint = false;
+    private Executor generationExecutor = MuOpenApiResourceBuilder::startVirtualThread;
+    private Duration refreshInterval;
+    private SchemaCache schemaCache;
 
     /**
      * @see #muOpenApiResource()
@@ -103,26 +123,466 @@ public class MuOpenApiResourceBuilder {
         return this;
     }
 
+    /**
+     * Gets the JAX-RS resource classes to generate documentation for.
+     *
+     * @return the resource classes to generate documentation for or null if not set
+     */
+    public Collection<Class<?>> resourceClasses() {
+        return resourceClasses;
+    }
+
+    /**
+     * Sets the JAX-RS resource classes to generate documentation for.
+     *
+     * <p>This is an alternative to {@link #withResources(Collection)} for when instances of the resources
+     * are not available, such as when generating the documentation at build time. These can be used together.</p>
+     *
+     * @param resourceClasses classes having a <code>@Path</code> annotation
+     * @return This builder
+     */
+    public MuOpenApiResourceBuilder withResourceClasses(Collection<Class<?>> resourceClasses) {
+        this.resourceClasses = resourceClasses;
+        return this;
+    }
+
+    /**
+     * Gets the classpath location of pre-generated documents.
+     *
+     * @return the base name of the pre-generated documents, or null if documents are generated at runtime
+     */
+    public String pregeneratedDocuments() {
+        return pregeneratedDocuments;
+    }
+
+    /**
+     * Serves documents that were generated at build time from the classpath rather than generating them at runtime.
+     *
+     * <p>The value is the classpath location of the documents without the extension. For example,
+     * a value of <code>openapi</code> would serve <code>openapi.json</code> and <code>openapi.yaml</code>
+     * from the root of the classpath, which is where the <code>generate</code> goal of the
+     * <code>mu-swagger-maven-plugin</code> writes them by default.</p>
+     *
+     * <p>When set, no annotation scanning happens at runtime. The settings that only affect generation, which
+     * are the OpenAPI definition, resources, resource classes, generation parallelism and schema cache, must not
+     * be set as the documents are served as they were generated.</p>
+     *
+     * @param pregeneratedDocuments the classpath location of the documents, without a file extension, or null to
+     *                              generate the documents at runtime
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withPregeneratedDocuments(String pregeneratedDocuments) {
+        this.pregeneratedDocuments = pregeneratedDocuments;
+        return this;
+    }
+
+    /**
+     * Gets the location on disk of pre-generated documents.
+     *
+     * @return the path of the pre-generated documents without extension, or null if not set
+     */
+    public Path pregeneratedDocumentFiles() {
+        return pregeneratedDocumentFiles;
+    }
+
+    /**
+     * Serves documents from files on disk rather than generating them at runtime.
+     *
+     * <p>The value is the path of the documents without the extension. For example, a value of
+     * <code>/opt/app/openapi</code> would serve <code>/opt/app/openapi.json</code> and <code>/opt/app/openapi.yaml</code>.
+     * The files may have been generated at build time, or exported from another instance with
+     * {@link MuOpenApiResource#writeDocument(String, java.io.OutputStream)}.</p>
+     *
+     * <p>The files are memory mapped rather than loaded onto the heap, so they must not be changed or deleted
+     * while this resource is in use. As with {@link #withPregeneratedDocuments(String)}, the settings that only
+     * affect generation must not be set.</p>
+     *
+     * @param pregeneratedDocumentFiles the path to the documents, without a file extension, or null to
+     *                                  generate the documents at runtime
+     * @return this builder
+     * @see #withPregeneratedDocuments(String)
+     */
+    public MuOpenApiResourceBuilder withPregeneratedDocumentFiles(Path pregeneratedDocumentFiles) {
+        this.pregeneratedDocumentFiles = pregeneratedDocumentFiles;
+        return this;
+    }
+
+    /**
+     * Gets whether gzipped copies of the documents are created and cached.
+     *
+     * @return true if a gzipped copy of each document is cached
+     */
+    public boolean precompressedGzip() {
+        return precompressedGzip;
+    }
+
+    /**
+     * Specifies whether a gzipped copy of each rendered document should be created once and cached
+     * alongside the uncompressed copy.
+     *
+     * <p>When enabled, clients sending an <code>Accept-Encoding</code> header that allows gzip receive the
+     * precompressed bytes with a <code>Content-Encoding: gzip</code> header, so the document does not need to
+     * be compressed again on each request. This is worthwhile for large specifications.</p>
+     *
+     * <p>Default is <code>false</code>.</p>
+     *
+     * @param precompressedGzip true to cache and serve gzipped documents
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withPrecompressedGzip(boolean precompressedGzip) {
+        this.precompressedGzip = precompressedGzip;
+        return this;
+    }
+
+    /**
+     * Gets the warm up mode.
+     *
+     * @return the mode that determines when the documents are generated
+     */
+    public WarmUpMode warmUpMode() {
+        return warmUpMode;
+    }
+
+    /**
+     * Specifies when the OpenAPI documents are generated.
+     *
+     * <p>Generating the documents involves scanning all the resources, which can take some time for large APIs.
+     * By default this happens on the first request for the documents. Use {@link WarmUpMode#EAGER} to
+     * generate them during {@link #build()}, or {@link WarmUpMode#BACKGROUND} to generate them on a
+     * background thread started by {@link #build()}.</p>
+     *
+     * <p>Default is {@link WarmUpMode#LAZY}.</p>
+     *
+     * @param warmUpMode the mode to use
+     * @return this builder
+     * @see MuOpenApiResource#ready()
+     */
+    public MuOpenApiResourceBuilder withWarmUpMode(WarmUpMode warmUpMode) {
+        this.warmUpMode = warmUpMode;
+        return this;
+    }
+
+    /**
+     * Gets the number of threads used to read resource classes when generating the documents.
+     *
+     * @return the generation parallelism
+     */
+    public int generationParallelism() {
+        return generationParallelism;
+    }
+
+    /**
+     * Sets the number of threads used to read resource classes when generating the documents.
+     *
+     * <p>When greater than 1, each resource class is read on a bounded fork-join pool with this many threads
+     * and the results are merged in the same order that a sequential read would use, so the generated
+     * document is the same as with sequential generation. This can reduce generation time for APIs with
+     * many resource classes. Any custom swagger model converters must be thread safe.</p>
+     *
+     * <p>Default is <code>1</code>, meaning classes are read sequentially.</p>
+     *
+     * @param generationParallelism the maximum number of threads to use, which must be at least 1
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withGenerationParallelism(int generationParallelism) {
+        this.generationParallelism = generationParallelism;
+        return this;
+    }
+
+    /**
+     * Gets the metrics that generation and serving measurements are reported to.
+     *
+     * @return the metrics
+     */
+    public OpenApiMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics that generation and serving measurements are reported to, such as generation time,
+     * cache hits and misses, and bytes served.
+     *
+     * <p>Default is {@link OpenApiMetrics#NO_OP}.</p>
+     *
+     * @param metrics the metrics to report to
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withMetrics(OpenApiMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Gets the maximum number of tag-filtered documents that are cached.
+     *
+     * @return the cache size
+     */
+    public int filteredDocumentCacheSize() {
+        return filteredDocumentCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of tag-filtered documents to cache.
+     *
+     * <p>Documents filtered with the <code>tags</code> query parameter are rendered when first requested and
+     * cached, with the least recently used documents removed when the cache is full. Each combination of
+     * format and tags is cached separately. If set to <code>0</code> then filtered documents are streamed
+     * straight to the response as they are serialized, without an <code>ETag</code>.</p>
+     *
+     * <p>Default is <code>32</code>.</p>
+     *
+     * @param filteredDocumentCacheSize the maximum number of filtered documents to cache, or 0 to not cache them
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withFilteredDocumentCacheSize(int filteredDocumentCacheSize) {
+        this.filteredDocumentCacheSize = filteredDocumentCacheSize;
+        return this;
+    }
+
+    /**
+     * Gets whether JSON documents are indented by default.
+     *
+     * @return true if JSON documents are indented unless a request asks for compact JSON
+     */
+    public boolean prettyPrint() {
+        return prettyPrint;
+    }
+
+    /**
+     * Specifies whether JSON documents are indented for people to read, or compact for machines.
+     *
+     * <p>Requests can override this with a <code>pretty</code> query parameter, for example
+     * <code>/openapi.json?pretty=true</code>, and each variant is rendered and cached separately. YAML documents
+     * are always indented.</p>
+     *
+     * <p>Default is <code>false</code>.</p>
+     *
+     * @param prettyPrint true to indent JSON documents by default
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+        return this;
+    }
+
+    /**
+     * Gets the executor that the documents are generated on.
+     *
+     * @return the generation executor
+     */
+    public Executor generationExecutor() {
+        return generationExecutor;
+    }
+
+    /**
+     * Specifies the executor that documents are generated and rendered on when they are not cached, and that
+     * background warm up and refreshes run on.
+     *
+     * <p>Requests for documents that are not cached are suspended and completed from this executor, so
+     * server threads are not blocked while the resources are scanned. Cached documents are served directly.</p>
+     *
+     * <p>Default is an executor that starts a new virtual thread for each task. This is not bounded, so every
+     * request for a document that is not cached yet gets its own thread, although concurrent requests for the
+     * same document wait for one rendering. To limit them, give a bounded executor: if it rejects a task the
+     * request gets a <code>503</code> response.</p>
+     *
+     * @param generationExecutor the executor to generate documents on
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withGenerationExecutor(Executor generationExecutor) {
+        this.generationExecutor = generationExecutor;
+        return this;
+    }
+
+    /**
+     * Gets the interval at which the documents are regenerated.
+     *
+     * @return the refresh interval, or null if the documents are only regenerated when requested
+     */
+    public Duration refreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Specifies that the documents should be regenerated periodically, for example when the documented
+     * resources change depending on configuration that may be reloaded.
+     *
+     * <p>Each refresh works like {@link MuOpenApiResource#refresh()}: the current documents are served until
+     * the new ones have been generated, and are kept if generation fails. A refresh is skipped if the previous
+     * one is still running.</p>
+     *
+     * <p>Default is <code>null</code>, meaning documents are only regenerated when requested.</p>
+     *
+     * @param refreshInterval the time between the end of one refresh and the start of the next, or null to
+     *                        not refresh periodically
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        return this;
+    }
+
+    /**
+     * Gets the cache that resolved schemas are shared through.
+     *
+     * @return the schema cache, or null if schemas are not cached
+     */
+    public SchemaCache schemaCache() {
+        return schemaCache;
+    }
+
+    /**
+     * Shares the schemas that swagger resolves for model classes with other resources given the same cache, so
+     * that model classes used by several resources, such as the resources for each tenant or API version, are
+     * only introspected once.
+     *
+     * <p>The generated documents are the same as without a cache. The cache is cleared when the last resource
+     * using it is closed.</p>
+     *
+     * <p>Default is <code>null</code>, meaning each resource resolves its own schemas.</p>
+     *
+     * @param schemaCache a cache created with {@link SchemaCache#schemaCache(int)}, or null to not cache schemas
+     * @return this builder
+     */
+    public MuOpenApiResourceBuilder withSchemaCache(SchemaCache schemaCache) {
+        this.schemaCache = schemaCache;
+        return this;
+    }
+
     /**
      * Builds the {@link MuOpenApiResource} instance.
      *
      * @return the OpenAPI resource that can be added to a {@link io.muserver.rest.RestHandlerBuilder}
-     * @throws IllegalStateException if no JAX-RS resources have been set
+     * @throws IllegalStateException if a setting is invalid or conflicts with another, if the pre-generated
+     * documents cannot be loaded, or if {@link WarmUpMode#EAGER} generation fails
      */
     public MuOpenApiResource build() {
-        if (resources == null) {
+        if (resources == null && resourceClasses == null && pregeneratedDocuments == null && pregeneratedDocumentFiles == null) {
             throw new IllegalStateException("No JAX-RS resources have been set for the OpenAPI resource");
         }
-        var swaggerConfig = new SwaggerConfiguration();
+        if (pregeneratedDocuments != null && pregeneratedDocumentFiles != null) {
+            throw new IllegalStateException("Pre-generated documents can be loaded from the classpath or from files, but not both");
+        }
+        if (warmUpMode == null) {
+            throw new IllegalStateException("No warm up mode has been set for the OpenAPI resource");
+        }
+        if (generationParallelism < 1) {
+            throw new IllegalStateException("The generation parallelism must be at least 1 but was " + generationParallelism);
+        }
+        if (metrics == null) {
+            throw new IllegalStateException("No metrics have been set for the OpenAPI resource");
+        }
+        if (generationExecutor == null) {
+            throw new IllegalStateException("No generation executor has been set for the OpenAPI resource");
+        }
+        if (refreshInterval != null && (refreshInterval.isZero() || refreshInterval.isNegative())) {
+            throw new IllegalStateException("The refresh interval must be positive but was " + refreshInterval);
+        }
+        if (refreshInterval != null && (pregeneratedDocuments != null || pregeneratedDocumentFiles != null)) {
+            throw new IllegalStateException("Pre-generated OpenAPI documents cannot be refreshed");
+        }
+        if (pregeneratedDocuments != null || pregeneratedDocumentFiles != null) {
+            var ignored = settingsIgnoredByPregeneratedDocuments();
+            if (!ignored.isEmpty()) {
+                throw new IllegalStateException("Pre-generated OpenAPI documents are served as they were generated, so they "
+                    + "cannot be combined with the settings that only affect generation: " + String.join(", ", ignored));
+            }
+        }
+        if (filteredDocumentCacheSize < 0) {
+            throw new IllegalStateException("The filtered document cache size cannot be negative but was " + filteredDocumentCacheSize);
+        }
+        var swaggerConfig = new SwaggerConfiguration().prettyPrint(prettyPrint);
         if (openApi != null) {
             swaggerConfig.setOpenAPI(openApi);
         }
-        var initialConfig = new ConcurrentHashMap<String, String>();
-        if (contextId != null) {
-            initialConfig.put(OpenApiContext.OPENAPI_CONTEXT_ID_KEY, contextId);
+        var resource = new MuOpenApiResource(resources == null ? List.of() : resources,
+            resourceClasses == null ? List.of() : resourceClasses, contextId, swaggerConfig, generationParallelism, precompressedGzip, metrics, filteredDocumentCacheSize, prettyPrint, generationExecutor, schemaCache);
+        if (pregeneratedDocuments != null) {
+            loadPregeneratedDocuments(resource);
+        } else if (pregeneratedDocumentFiles != null) {
+            mapPregeneratedDocumentFiles(resource);
+        }
+        try {
+            resource.warmUp(warmUpMode);
+        } catch (RuntimeException e) {
+            resource.close();
+            throw e;
+        }
+        if (refreshInterval != null) {
+            resource.scheduleRefreshes(refreshInterval);
+        }
+        return resource;
+    }
+
+    /**
+     * Builds a {@link MuOpenApiHandler} that serves the documents directly rather than through a JAX-RS rest
+     * handler.
+     *
+     * @return the OpenAPI handler that can be added to a {@link io.muserver.MuServerBuilder}
+     * @throws IllegalStateException for the same reasons as {@link #build()}
+     */
+    public MuOpenApiHandler buildHandler() {
+        return new MuOpenApiHandler(build());
+    }
+
+    /**
+     * Gets the settings that only affect generation, which pre-generated documents would silently ignore.
+     */
+    private List<String> settingsIgnoredByPregeneratedDocuments() {
+        var ignored = new ArrayList<String>();
+        if (openApi != null) {
+            ignored.add("openApi");
+        }
+        if (resources != null) {
+            ignored.add("resources");
+        }
+        if (resourceClasses != null) {
+            ignored.add("resourceClasses");
+        }
+        if (generationParallelism != 1) {
+            ignored.add("generationParallelism");
+        }
+        if (schemaCache != null) {
+            ignored.add("schemaCache");
+        }
+        return ignored;
+    }
+
+    private static void startVirtualThread(Runnable task) {
+        Thread.ofVirtual().name("mu-openapi-generation").start(task);
+    }
+
+    private void loadPregeneratedDocuments(MuOpenApiResource resource) {
+        var base = pregeneratedDocuments.startsWith("/") ? pregeneratedDocuments.substring(1) : pregeneratedDocuments;
+        var classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = MuOpenApiResourceBuilder.class.getClassLoader();
+        }
+        for (Map.Entry<String, String> format : FORMAT_CONTENT_TYPES.entrySet()) {
+            var name = base + "." + format.getKey();
+            try (var stream = classLoader.getResourceAsStream(name)) {
+                if (stream == null) {
+                    throw new IllegalStateException("Could not find pre-generated OpenAPI document " + name + " on the classpath");
+                }
+                resource.preload(format.getKey(), RenderedSpec.create(stream.readAllBytes(), format.getValue(), precompressedGzip));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read pre-generated OpenAPI document " + name, e);
+            }
+        }
+    }
+
+    private void mapPregeneratedDocumentFiles(MuOpenApiResource resource) {
+        for (Map.Entry<String, String> format : FORMAT_CONTENT_TYPES.entrySet()) {
+            var file = pregeneratedDocumentFiles.resolveSibling(pregeneratedDocumentFiles.getFileName() + "." + format.getKey());
+            if (!Files.isRegularFile(file)) {
+                throw new IllegalStateException("Could not find pre-generated OpenAPI document " + file);
+            }
+            try {
+                resource.preload(format.getKey(), RenderedSpec.map(file, format.getValue(), precompressedGzip));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read pre-generated OpenAPI document " + file, e);
+            }
         }
-        var containerAttributes = new ConcurrentHashMap<String, Object>();
-        return new MuOpenApiResource(resources, initialConfig, containerAttributes, swaggerConfig);
     }
 
     /**
@@ -0,0 +1,72 @@
+package io.muserver.muswagger;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the phases of OpenAPI generation and serving, so that time and allocation
+ * in swagger and Jackson can be attributed to OpenAPI documents in a recording.
+ *
+ * <p>All events are enabled by default with no threshold. Recording them costs little as they happen once
+ * per generation or once per request, and nothing is recorded unless a recording is running.</p>
+ */
+final class OpenApiEvents {
+
+    private OpenApiEvents() {}
+
+    @Category({"Mu Server", "OpenAPI"})
+    @StackTrace(false)
+    abstract static class OpenApiEvent extends Event {
+        @Label("Context ID")
+        String contextId;
+
+        @Label("Format")
+        String format;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        void commit(String contextId, String format, long size) {
+            end();
+            if (shouldCommit()) {
+                this.contextId = contextId;
+                this.format = format;
+                this.size = size;
+                commit();
+            }
+        }
+    }
+
+    @Name("io.muserver.muswagger.ContextInitialization")
+    @Label("OpenAPI Context Initialization")
+    @Description("Creation and registration of the swagger context")
+    static final class ContextInitialization extends OpenApiEvent {
+    }
+
+    @Name("io.muserver.muswagger.Read")
+    @Label("OpenAPI Read")
+    @Description("Scanning the resources and resolving the models to build the OpenAPI model")
+    static final class Read extends OpenApiEvent {
+        @Label("Paths")
+        int paths;
+    }
+
+    @Name("io.muserver.muswagger.Serialization")
+    @Label("OpenAPI Serialization")
+    @Description("Serializing the OpenAPI model to a document")
+    static final class Serialization extends OpenApiEvent {
+    }
+
+    @Name("io.muserver.muswagger.Response")
+    @Label("OpenAPI Response")
+    @Description("Handling a request for a document. The size is the size of the response body.")
+    static final class Response extends OpenApiEvent {
+    }
+
+}
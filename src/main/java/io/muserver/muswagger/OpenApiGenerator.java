@@ -0,0 +1,358 @@
+package io.muserver.muswagger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.swagger.v3.jaxrs2.Reader;
+import io.swagger.v3.jaxrs2.integration.JaxrsOpenApiContext;
+import io.swagger.v3.oas.integration.api.OpenAPIConfiguration;
+import io.swagger.v3.oas.integration.api.OpenApiContext;
+import io.swagger.v3.oas.integration.api.OpenApiScanner;
+import io.swagger.v3.oas.models.OpenAPI;
+import jakarta.ws.rs.core.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates OpenAPI documents by driving swagger's JAX-RS context and reader directly, without any servlet
+ * types and without scanning the classpath: only the resources given to {@link MuOpenApiResourceBuilder}
+ * are read.
+ */
+final class OpenApiGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenApiGenerator.class);
+
+    /**
+     * The context ID used when none is specified, which is the same ID that swagger's servlet integration
+     * would use for a servlet named <code>MuOpenApiResource</code>.
+     */
+    static final String DEFAULT_CONTEXT_ID = OpenApiContext.OPENAPI_CONTEXT_ID_PREFIX + "servlet.MuOpenApiResource";
+
+    private final String contextId;
+    private final Application application;
+    private final OpenAPIConfiguration openApiConfiguration;
+    private final int parallelism;
+    private final OpenApiMetrics metrics;
+    private final SchemaCache schemaCache;
+    private final Map<Class<?>, OpenAPI> classModels = new HashMap<>();
+    private final ReentrantLock classModelsLock = new ReentrantLock();
+    private final ReentrantLock contextLock = new ReentrantLock();
+    private final Map<String, Integer> sizeHints = new ConcurrentHashMap<>();
+    private final Map<String, ObjectMapper> binaryMappers = new ConcurrentHashMap<>();
+    private OpenApiContext context;
+    private boolean closed;
+
+    /**
+     * @param schemaCache the cache to resolve schemas with, or null to resolve them all for this generator
+     */
+    OpenApiGenerator(String contextId, Application application, OpenAPIConfiguration openApiConfiguration, int parallelism, OpenApiMetrics metrics, SchemaCache schemaCache) {
+        this.contextId = contextId == null ? DEFAULT_CONTEXT_ID : contextId;
+        this.application = application;
+        this.openApiConfiguration = openApiConfiguration;
+        this.parallelism = parallelism;
+        this.metrics = metrics;
+        this.schemaCache = schemaCache;
+        if (schemaCache != null) {
+            schemaCache.retain();
+        }
+    }
+
+    /**
+     * Reads the resources to build the OpenAPI model.
+     *
+     * @param rebuild if true, a new swagger context is created so that the resources are read again, rather
+     *                than using any model cached by the existing one
+     * @return the model, or null if swagger did not produce one
+     */
+    OpenAPI read(boolean rebuild) throws Exception {
+        var context = context(rebuild);
+        if (rebuild) {
+            classModelsLock.lock();
+            try {
+                classModels.clear();
+            } finally {
+                classModelsLock.unlock();
+            }
+        }
+        return measured(context::read);
+    }
+
+    /**
+     * Builds the OpenAPI model from a partial model of each resource class, reading only the classes that
+     * have not been read before, so that adding or removing a resource class costs reading just that class.
+     *
+     * <p>If the partial models cannot be merged, for example because two classes use the same operation ID,
+     * then all the classes are read again with {@link #read(boolean)}.</p>
+     *
+     * @return the model, or null if swagger did not produce one
+     */
+    OpenAPI readIncrementally() throws Exception {
+        return measured(() -> {
+            var classes = ApplicationScanner.classesOf(application);
+            if (classes.isEmpty() || classes.stream().anyMatch(PartialModels::affectsWholeScan)) {
+                return context(true).read();
+            }
+            classModelsLock.lock();
+            try {
+                classModels.keySet().retainAll(classes);
+                var unread = new HashSet<>(classes);
+                unread.removeAll(classModels.keySet());
+                classModels.putAll(PartialModels.read(unread, application, openApiConfiguration, Map.of(), parallelism));
+                try {
+                    return PartialModels.merge(PartialModels.sortLikeReader(classes).stream().map(classModels::get).toList());
+                } catch (PartialModels.MergeConflictException e) {
+                    log.info("Reading all resource classes as the partial models cannot be merged: {}", e.getMessage());
+                    classModels.clear();
+                    return context(true).read();
+                }
+            } finally {
+                classModelsLock.unlock();
+            }
+        });
+    }
+
+    private OpenAPI measured(Callable<OpenAPI> reader) throws Exception {
+        if (schemaCache != null) {
+            SchemaCacheConverter.install(openApiConfiguration);
+        }
+        var event = new OpenApiEvents.Read();
+        event.begin();
+        long start = System.nanoTime();
+        OpenAPI model;
+        try {
+            model = schemaCache == null ? reader.call() : schemaCache.activate(reader);
+        } catch (Exception e) {
+            metrics.generationFailed(contextId, e);
+            throw e;
+        }
+        if (model != null) {
+            metrics.generated(contextId, Duration.ofNanos(System.nanoTime() - start));
+            event.paths = model.getPaths() == null ? 0 : model.getPaths().size();
+            event.commit(contextId, null, 0);
+        }
+        return model;
+    }
+
+    /**
+     * Serializes a model to a document in memory.
+     *
+     * <p>The model is streamed into a buffer that is sized from the previous document of the same type. When the
+     * document is the same size as before the buffer is used as is, and otherwise it is copied to an array of
+     * exactly its size so that the cached document holds no unused capacity.</p>
+     *
+     * @param openApi the model from {@link #read(boolean)}
+     * @param type one of <code>json</code>, <code>yaml</code>, <code>cbor</code> or <code>smile</code>
+     * @param pretty true to indent JSON documents, or false for compact JSON
+     * @return the UTF-8 encoded document
+     */
+    ByteBuffer serialize(OpenAPI openApi, String type, boolean pretty) throws Exception {
+        var hintKey = pretty ? type + "+pretty" : type;
+        var buffer = new DocumentBuffer(sizeHints.getOrDefault(hintKey, 0));
+        writeTo(openApi, type, pretty, buffer);
+        sizeHints.put(hintKey, buffer.size());
+        return buffer.toByteBuffer();
+    }
+
+    /**
+     * Streams a model as a document to an output stream, without holding the document in memory.
+     *
+     * @param openApi the model from {@link #read(boolean)}
+     * @param type one of <code>json</code>, <code>yaml</code>, <code>cbor</code> or <code>smile</code>
+     * @param pretty true to indent JSON documents, or false for compact JSON
+     * @param out the stream to write to, which is not closed
+     */
+    void writeTo(OpenAPI openApi, String type, boolean pretty, OutputStream out) throws Exception {
+        var context = context(false);
+        var event = new OpenApiEvents.Serialization();
+        event.begin();
+        long start = System.nanoTime();
+        var counter = new CountingOutputStream(out);
+        writer(context, type, pretty).writeValue(counter, openApi);
+        metrics.serialized(contextId, type, Duration.ofNanos(System.nanoTime() - start), counter.count);
+        event.commit(contextId, type, counter.count);
+    }
+
+    /**
+     * Gets a writer for the format. YAML is always indented, so <code>pretty</code> only applies to JSON.
+     *
+     * <p>The binary formats use a copy of the context's JSON mapper, so they have the same content as the
+     * JSON document. The copies are kept until the context is rebuilt.</p>
+     */
+    private ObjectWriter writer(OpenApiContext context, String type, boolean pretty) {
+        var mapper = switch (type) {
+            case "yaml" -> context.getOutputYamlMapper();
+            case "cbor" -> binaryMappers.computeIfAbsent(type, t -> context.getOutputJsonMapper().copyWith(new CBORFactory()));
+            case "smile" -> binaryMappers.computeIfAbsent(type, t -> context.getOutputJsonMapper().copyWith(new SmileFactory()));
+            default -> context.getOutputJsonMapper();
+        };
+        var writer = pretty ? mapper.writer(new DefaultPrettyPrinter()) : mapper.writer();
+        return writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Serializes a part of a model, such as a schema or path item, to a separate document.
+     *
+     * @param fragment the part of a model to serialize
+     * @param type one of <code>json</code>, <code>yaml</code>, <code>cbor</code> or <code>smile</code>
+     * @param pretty true to indent JSON documents, or false for compact JSON
+     * @return the UTF-8 encoded document
+     */
+    byte[] serializeFragment(Object fragment, String type, boolean pretty) throws Exception {
+        var context = context(false);
+        var event = new OpenApiEvents.Serialization();
+        event.begin();
+        long start = System.nanoTime();
+        var bytes = writer(context, type, pretty).writeValueAsBytes(fragment);
+        metrics.serialized(contextId, type, Duration.ofNanos(System.nanoTime() - start), bytes.length);
+        event.commit(contextId, type, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Gets this generator's swagger context, creating it if it does not exist yet or if a rebuild is requested.
+     *
+     * <p>Locks are used rather than monitors here and around the partial models, as reading can wait for
+     * other threads and a monitor would pin a virtual thread to its carrier while it waits.</p>
+     */
+    private OpenApiContext context(boolean rebuild) throws Exception {
+        contextLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The OpenAPI generator for " + contextId + " has been closed");
+            }
+            if (context != null && !rebuild) {
+                return context;
+            }
+            var event = new OpenApiEvents.ContextInitialization();
+            event.begin();
+            var reader = parallelism > 1 ? new ParallelReader(parallelism) : new Reader();
+            reader.setApplication(application);
+            reader.setConfiguration(openApiConfiguration);
+            var created = new OwnedContext()
+                .app(application)
+                .openApiConfiguration(openApiConfiguration)
+                .id(contextId)
+                .openApiReader(reader)
+                .openApiScanner(new ApplicationScanner(application));
+            created.init();
+            context = created;
+            binaryMappers.clear();
+            event.commit(contextId, null, 0);
+            return created;
+        } finally {
+            contextLock.unlock();
+        }
+    }
+
+    String contextId() {
+        return contextId;
+    }
+
+    /**
+     * Discards the context and partial models of this generator, so that nothing read by it stays reachable.
+     * The generator cannot be used afterwards.
+     */
+    void close() {
+        contextLock.lock();
+        try {
+            if (!closed && schemaCache != null) {
+                schemaCache.release();
+            }
+            closed = true;
+            binaryMappers.clear();
+            context = null;
+        } finally {
+            contextLock.unlock();
+        }
+        classModelsLock.lock();
+        try {
+            classModels.clear();
+        } finally {
+            classModelsLock.unlock();
+        }
+    }
+
+    /**
+     * A context that is not registered in swagger's JVM-wide context locator, so that it belongs to this
+     * generator alone: resources with the same context ID do not share it, and nothing needs removing when the
+     * generator is closed.
+     */
+    private static class OwnedContext extends JaxrsOpenApiContext<OwnedContext> {
+        @Override
+        protected void register() {
+        }
+    }
+
+    /**
+     * A scanner that returns just the classes of the application rather than scanning the classpath.
+     */
+    private static class ApplicationScanner implements OpenApiScanner {
+        private final Application application;
+
+        private ApplicationScanner(Application application) {
+            this.application = application;
+        }
+
+        @Override
+        public void setConfiguration(OpenAPIConfiguration openApiConfiguration) {
+        }
+
+        @Override
+        public Set<Class<?>> classes() {
+            return classesOf(application);
+        }
+
+        static Set<Class<?>> classesOf(Application application) {
+            var classes = new HashSet<Class<?>>(application.getClasses());
+            for (Object singleton : application.getSingletons()) {
+                classes.add(singleton.getClass());
+            }
+            return classes;
+        }
+
+        @Override
+        public Map<String, Object> resources() {
+            return Map.of();
+        }
+    }
+
+    /**
+     * Counts the bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+}
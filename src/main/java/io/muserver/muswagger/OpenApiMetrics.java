@@ -0,0 +1,81 @@
+package io.muserver.muswagger;
+
+import java.time.Duration;
+
+/**
+ * Receives measurements about the generation and serving of OpenAPI documents, so that they can be
+ * forwarded to a metrics library.
+ *
+ * <p>All methods have empty default implementations, so only the measurements of interest need to be
+ * implemented. Methods may be called concurrently from request threads and should return quickly.</p>
+ *
+ * @see MuOpenApiResourceBuilder#withMetrics(OpenApiMetrics)
+ */
+public interface OpenApiMetrics {
+
+    /**
+     * A metrics implementation that ignores all measurements. This is the default.
+     */
+    OpenApiMetrics NO_OP = new OpenApiMetrics() {};
+
+    /**
+     * Called when the OpenAPI model has been generated from the resources.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param duration the time taken to scan and read the resources
+     */
+    default void generated(String contextId, Duration duration) {}
+
+    /**
+     * Called when generating the OpenAPI model fails.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param error the error
+     */
+    default void generationFailed(String contextId, Throwable error) {}
+
+    /**
+     * Called when the model has been serialized to a document.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param format the format of the document, such as <code>json</code> or <code>yaml</code>
+     * @param duration the time taken to serialize the document
+     * @param bytes the size of the document
+     */
+    default void serialized(String contextId, String format, Duration duration, long bytes) {}
+
+    /**
+     * Called when a document is found in the cache, already rendered.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param format the format of the document
+     */
+    default void cacheHit(String contextId, String format) {}
+
+    /**
+     * Called when a document is not in the cache and so needs to be generated, or when it is being generated for
+     * another request and this request waits for it.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param format the format of the document
+     */
+    default void cacheMiss(String contextId, String format) {}
+
+    /**
+     * Called when a document is sent in a response.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param format the format of the document
+     * @param bytes the size of the response body, which is the compressed size if it was gzipped
+     */
+    default void served(String contextId, String format, long bytes) {}
+
+    /**
+     * Called when a <code>304 Not Modified</code> response is sent because the client's copy is current.
+     *
+     * @param contextId the context ID of the OpenAPI resource
+     * @param format the format of the document
+     */
+    default void notModified(String contextId, String format) {}
+
+}
@@ -0,0 +1,61 @@
+package io.muserver.muswagger;
+
+import io.swagger.v3.jaxrs2.Reader;
+import io.swagger.v3.oas.integration.api.OpenAPIConfiguration;
+import io.swagger.v3.oas.models.OpenAPI;
+import jakarta.ws.rs.core.Application;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A swagger reader that reads each resource class on its own thread and then merges the results.
+ *
+ * <p>This is used when {@link MuOpenApiResourceBuilder#withGenerationParallelism(int)} is greater than 1.</p>
+ *
+ * <p>The per-class models are merged with {@link PartialModels}, so the output is the same as a sequential
+ * read. If the classes cannot be merged then they are read again sequentially so that the output is still
+ * identical.</p>
+ */
+final class ParallelReader extends Reader {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelReader.class);
+
+    private final int parallelism;
+    private OpenAPIConfiguration originalConfig;
+    private Application application;
+
+    ParallelReader(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void setConfiguration(OpenAPIConfiguration openApiConfiguration) {
+        this.originalConfig = openApiConfiguration;
+        super.setConfiguration(openApiConfiguration);
+    }
+
+    @Override
+    public void setApplication(Application application) {
+        this.application = application;
+        super.setApplication(application);
+    }
+
+    @Override
+    public OpenAPI read(Set<Class<?>> classes, Map<String, Object> resources) {
+        if (parallelism <= 1 || classes.size() <= 1 || classes.stream().anyMatch(PartialModels::affectsWholeScan)) {
+            return super.read(classes, resources);
+        }
+        var sortedClasses = PartialModels.sortLikeReader(classes);
+        var models = PartialModels.read(sortedClasses, application, originalConfig, resources, parallelism);
+        try {
+            return PartialModels.merge(sortedClasses.stream().map(models::get).toList());
+        } catch (PartialModels.MergeConflictException e) {
+            log.info("Falling back to sequential OpenAPI generation: {}", e.getMessage());
+            return super.read(classes, resources);
+        }
+    }
+
+}
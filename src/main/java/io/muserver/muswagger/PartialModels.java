@@ -0,0 +1,301 @@
+package io.muserver.muswagger;
+
+import io.swagger.v3.jaxrs2.Reader;
+import io.swagger.v3.jaxrs2.ReaderListener;
+import io.swagger.v3.oas.integration.api.OpenAPIConfiguration;
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.tags.Tag;
+import jakarta.ws.rs.core.Application;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Reads resource classes into partial models, one per class, and merges partial models into a full model.
+ *
+ * <p>The partial models are merged in the same order that the swagger {@link Reader} reads classes, so
+ * the result is the same as a sequential read of all the classes. If the classes interact in ways that a
+ * sequential read resolves differently from a simple merge (for example the same operation ID used in two
+ * classes, the same path and method declared twice, or a component declared with different definitions) then
+ * a {@link MergeConflictException} is thrown so that the caller can read the classes sequentially instead.</p>
+ *
+ * <p>Merging does not change the partial models, so they can be kept and merged again when the set of
+ * classes changes.</p>
+ */
+final class PartialModels {
+
+    private PartialModels() {}
+
+    /**
+     * Sorts classes into the same order that {@link Reader#read(Set)} uses.
+     */
+    static SortedSet<Class<?>> sortLikeReader(Collection<Class<?>> classes) {
+        var sorted = new TreeSet<Class<?>>(PartialModels::compareLikeReader);
+        sorted.addAll(classes);
+        return sorted;
+    }
+
+    /**
+     * Listeners and application classes change how every other class is read, so their presence means
+     * partial models cannot be used.
+     */
+    static boolean affectsWholeScan(Class<?> cls) {
+        return ReaderListener.class.isAssignableFrom(cls) || Application.class.isAssignableFrom(cls);
+    }
+
+    /**
+     * Reads each class into its own partial model.
+     *
+     * @param parallelism the maximum number of classes to read at once
+     * @return the partial model of each class
+     */
+    static Map<Class<?>, OpenAPI> read(Collection<Class<?>> classes, Application application, OpenAPIConfiguration config,
+                                       Map<String, Object> resources, int parallelism) {
+        var models = new HashMap<Class<?>, OpenAPI>();
+        if (parallelism <= 1 || classes.size() <= 1) {
+            for (Class<?> cls : classes) {
+                models.put(cls, readClass(cls, application, config, resources));
+            }
+            return models;
+        }
+        var pool = new ForkJoinPool(Math.min(parallelism, classes.size()));
+        var schemaCache = SchemaCache.active();
+        try {
+            Map<Class<?>, ForkJoinTask<OpenAPI>> tasks = new LinkedHashMap<>();
+            for (Class<?> cls : classes) {
+                Callable<OpenAPI> task = () -> readClass(cls, application, config, resources);
+                // the pool's threads resolve schemas with the same cache as the thread that started the read
+                tasks.put(cls, pool.submit(schemaCache == null ? task : () -> schemaCache.activate(task)));
+            }
+            for (Map.Entry<Class<?>, ForkJoinTask<OpenAPI>> task : tasks.entrySet()) {
+                models.put(task.getKey(), task.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading resource classes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Error while reading resource classes", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return models;
+    }
+
+    private static OpenAPI readClass(Class<?> cls, Application application, OpenAPIConfiguration config, Map<String, Object> resources) {
+        var reader = new Reader();
+        reader.setApplication(application);
+        reader.setConfiguration(config);
+        return reader.read(Set.of(cls), resources);
+    }
+
+    /**
+     * The same ordering that {@link Reader#read(Set)} uses.
+     */
+    private static int compareLikeReader(Class<?> class1, Class<?> class2) {
+        if (class1.equals(class2)) {
+            return 0;
+        } else if (class1.isAssignableFrom(class2)) {
+            return -1;
+        } else if (class2.isAssignableFrom(class1)) {
+            return 1;
+        }
+        return class1.getName().compareTo(class2.getName());
+    }
+
+    /**
+     * Merges partial models into a new model, without changing the partial models.
+     *
+     * @param partialModels the models, in the order returned by {@link #sortLikeReader(Collection)}
+     * @return a new model
+     * @throws MergeConflictException if the models cannot be merged to give the same result as a sequential read
+     */
+    static OpenAPI merge(List<OpenAPI> partialModels) throws MergeConflictException {
+        var first = partialModels.get(0);
+        var result = new OpenAPI(first.getSpecVersion());
+        result.setOpenapi(first.getOpenapi());
+        result.setInfo(first.getInfo());
+        result.setExternalDocs(first.getExternalDocs());
+        result.setServers(first.getServers());
+        result.setSecurity(first.getSecurity());
+        result.setWebhooks(first.getWebhooks());
+        result.setJsonSchemaDialect(first.getJsonSchemaDialect());
+        result.setExtensions(first.getExtensions());
+        var operationIds = new HashSet<String>();
+        for (OpenAPI other : partialModels) {
+            if (!Objects.equals(first.getOpenapi(), other.getOpenapi())
+                || !Objects.equals(first.getInfo(), other.getInfo())
+                || !Objects.equals(first.getExternalDocs(), other.getExternalDocs())
+                || !Objects.equals(first.getServers(), other.getServers())
+                || !Objects.equals(first.getSecurity(), other.getSecurity())
+                || !Objects.equals(first.getWebhooks(), other.getWebhooks())
+                || !Objects.equals(first.getJsonSchemaDialect(), other.getJsonSchemaDialect())
+                || !Objects.equals(first.getExtensions(), other.getExtensions())) {
+                throw new MergeConflictException("resource classes declare different API level definitions");
+            }
+            collectOperationIds(other, operationIds);
+            mergePaths(result, other);
+            mergeTags(result, other);
+            mergeComponents(result, other);
+        }
+        return result;
+    }
+
+    private static void collectOperationIds(OpenAPI openAPI, Set<String> operationIds) throws MergeConflictException {
+        if (openAPI.getPaths() == null) {
+            return;
+        }
+        for (PathItem pathItem : openAPI.getPaths().values()) {
+            for (var operation : pathItem.readOperations()) {
+                var id = operation.getOperationId();
+                if (id != null && !operationIds.add(id)) {
+                    throw new MergeConflictException("operation ID " + id + " is used by more than one resource class");
+                }
+            }
+        }
+    }
+
+    private static void mergePaths(OpenAPI into, OpenAPI from) throws MergeConflictException {
+        if (from.getPaths() == null) {
+            return;
+        }
+        if (into.getPaths() == null) {
+            var paths = new Paths();
+            paths.setExtensions(from.getPaths().getExtensions());
+            into.setPaths(paths);
+        }
+        for (Map.Entry<String, PathItem> entry : from.getPaths().entrySet()) {
+            var existing = into.getPaths().get(entry.getKey());
+            if (existing == null) {
+                into.getPaths().addPathItem(entry.getKey(), entry.getValue());
+                continue;
+            }
+            var addition = entry.getValue();
+            if (!Objects.equals(existing.getSummary(), addition.getSummary())
+                || !Objects.equals(existing.getDescription(), addition.getDescription())
+                || !Objects.equals(existing.getServers(), addition.getServers())
+                || !Objects.equals(existing.getParameters(), addition.getParameters())
+                || !Objects.equals(existing.get$ref(), addition.get$ref())
+                || !Objects.equals(existing.getExtensions(), addition.getExtensions())) {
+                throw new MergeConflictException("path " + entry.getKey() + " has different definitions in different resource classes");
+            }
+            // the existing item belongs to a partial model, so a copy is changed instead
+            var merged = copy(existing);
+            var existingOperations = existing.readOperationsMap();
+            for (Map.Entry<PathItem.HttpMethod, Operation> op : addition.readOperationsMap().entrySet()) {
+                if (existingOperations.containsKey(op.getKey())) {
+                    throw new MergeConflictException(op.getKey() + " " + entry.getKey() + " is declared by more than one resource class");
+                }
+                merged.operation(op.getKey(), op.getValue());
+            }
+            into.getPaths().put(entry.getKey(), merged);
+        }
+    }
+
+    private static PathItem copy(PathItem source) {
+        var copy = new PathItem();
+        copy.setSummary(source.getSummary());
+        copy.setDescription(source.getDescription());
+        copy.setServers(source.getServers());
+        copy.setParameters(source.getParameters());
+        copy.set$ref(source.get$ref());
+        copy.setExtensions(source.getExtensions());
+        for (Map.Entry<PathItem.HttpMethod, Operation> op : source.readOperationsMap().entrySet()) {
+            copy.operation(op.getKey(), op.getValue());
+        }
+        return copy;
+    }
+
+    private static void mergeTags(OpenAPI into, OpenAPI from) throws MergeConflictException {
+        if (from.getTags() == null) {
+            return;
+        }
+        var tags = into.getTags() == null ? new ArrayList<Tag>() : into.getTags();
+        for (Tag tag : from.getTags()) {
+            var existing = tags.stream().filter(t -> Objects.equals(t.getName(), tag.getName())).findFirst();
+            if (existing.isEmpty()) {
+                tags.add(tag);
+            } else if (!existing.get().equals(tag)) {
+                throw new MergeConflictException("tag " + tag.getName() + " has different definitions in different resource classes");
+            }
+        }
+        into.setTags(tags);
+    }
+
+    private static void mergeComponents(OpenAPI into, OpenAPI from) throws MergeConflictException {
+        var source = from.getComponents();
+        if (source == null) {
+            return;
+        }
+        if (into.getComponents() == null) {
+            into.setComponents(new Components());
+        }
+        var target = into.getComponents();
+        mergeMap("schema", target, source, Components::getSchemas, Components::setSchemas);
+        mergeMap("response", target, source, Components::getResponses, Components::setResponses);
+        mergeMap("parameter", target, source, Components::getParameters, Components::setParameters);
+        mergeMap("example", target, source, Components::getExamples, Components::setExamples);
+        mergeMap("request body", target, source, Components::getRequestBodies, Components::setRequestBodies);
+        mergeMap("header", target, source, Components::getHeaders, Components::setHeaders);
+        mergeMap("security scheme", target, source, Components::getSecuritySchemes, Components::setSecuritySchemes);
+        mergeMap("link", target, source, Components::getLinks, Components::setLinks);
+        mergeMap("callback", target, source, Components::getCallbacks, Components::setCallbacks);
+        mergeMap("path item", target, source, Components::getPathItems, Components::setPathItems);
+        mergeMap("extension", target, source, Components::getExtensions, Components::setExtensions);
+    }
+
+    private static <T> void mergeMap(String description, Components target, Components source,
+                                     Function<Components, Map<String, T>> getter, BiConsumer<Components, Map<String, T>> setter) throws MergeConflictException {
+        var from = getter.apply(source);
+        if (from == null) {
+            return;
+        }
+        var into = getter.apply(target);
+        if (into == null) {
+            into = newMapLike(from);
+            setter.accept(target, into);
+        }
+        for (Map.Entry<String, T> entry : from.entrySet()) {
+            var existing = into.putIfAbsent(entry.getKey(), entry.getValue());
+            if (existing != null && !existing.equals(entry.getValue())) {
+                throw new MergeConflictException(description + " " + entry.getKey() + " has different definitions in different resource classes");
+            }
+        }
+    }
+
+    /**
+     * Creates an empty map with the same ordering as the given map, so that the merged components are in the
+     * same order as a sequential read would give.
+     */
+    private static <T> Map<String, T> newMapLike(Map<String, T> map) {
+        if (map instanceof SortedMap<String, T> sorted) {
+            return new TreeMap<>(sorted.comparator());
+        } else if (map instanceof LinkedHashMap) {
+            return new LinkedHashMap<>();
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Thrown when partial models cannot be merged.
+     */
+    static class MergeConflictException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        MergeConflictException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package io.muserver.muswagger;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A fully rendered OpenAPI document in one format, held as immutable bytes so that it can be served
+ * repeatedly without going back through the swagger serializers.
+ *
+ * <p>The bytes are either on the heap, or in a read-only memory mapped file for documents loaded from disk.
+ * Rendered heap documents are exactly sized arrays, so they are sent with a <code>Content-Length</code> and
+ * hold no unused capacity while they are cached.</p>
+ */
+final class RenderedSpec {
+
+    private static final int WRITE_CHUNK_SIZE = 64 * 1024;
+
+    private final byte[] bytes;
+    private final ByteBuffer content;
+    private final String contentType;
+    private final String contentEncoding;
+    private final String etag;
+    private final RenderedSpec gzipped;
+
+    private RenderedSpec(byte[] bytes, ByteBuffer content, String contentType, String contentEncoding, RenderedSpec gzipped) {
+        this.bytes = bytes;
+        this.content = content.asReadOnlyBuffer();
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.etag = hash(content.duplicate());
+        this.gzipped = gzipped;
+    }
+
+    /**
+     * Creates a rendered spec from an uncompressed document.
+     *
+     * @param bytes the UTF-8 encoded document
+     * @param contentType the media type of the document
+     * @param precompress if true, a gzip encoded copy is created now and made available from {@link #gzipped()}
+     * @return a new rendered spec
+     */
+    static RenderedSpec create(byte[] bytes, String contentType, boolean precompress) {
+        var content = ByteBuffer.wrap(bytes);
+        return new RenderedSpec(bytes, content, contentType, null, precompress ? gzipped(content, contentType) : null);
+    }
+
+    /**
+     * Creates a rendered spec from an uncompressed document in a buffer, without copying it.
+     *
+     * @param content the UTF-8 encoded document, which must not be changed afterwards
+     * @param contentType the media type of the document
+     * @param precompress if true, a gzip encoded copy is created now and made available from {@link #gzipped()}
+     * @return a new rendered spec
+     */
+    static RenderedSpec create(ByteBuffer content, String contentType, boolean precompress) {
+        var wholeArray = content.hasArray() && content.arrayOffset() + content.position() == 0
+            && content.remaining() == content.array().length;
+        return new RenderedSpec(wholeArray ? content.array() : null, content, contentType, null,
+            precompress ? gzipped(content, contentType) : null);
+    }
+
+    /**
+     * Creates a rendered spec from an uncompressed document on disk by memory mapping the file, so that the
+     * document is not held on the heap. The file must not be changed while it is being served.
+     *
+     * @param file the UTF-8 encoded document
+     * @param contentType the media type of the document
+     * @param precompress if true, a gzip encoded copy is created now and made available from {@link #gzipped()}
+     * @return a new rendered spec
+     * @throws IOException if the file cannot be read
+     */
+    static RenderedSpec map(Path file, String contentType, boolean precompress) throws IOException {
+        ByteBuffer content;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return new RenderedSpec(null, content, contentType, null, precompress ? gzipped(content, contentType) : null);
+    }
+
+    private static RenderedSpec gzipped(ByteBuffer content, String contentType) {
+        var compressed = gzip(content.duplicate());
+        return new RenderedSpec(compressed, ByteBuffer.wrap(compressed), contentType, "gzip", null);
+    }
+
+    /**
+     * @return the size of the document in bytes
+     */
+    int length() {
+        return content.remaining();
+    }
+
+    /**
+     * @return a read-only view of the document, positioned at the start
+     */
+    ByteBuffer content() {
+        return content.duplicate();
+    }
+
+    /**
+     * Gets the document as a JAX-RS response entity. Heap documents are returned as their array. Memory mapped
+     * documents are returned as a {@link StreamingOutput}, which copies them through the heap in chunks rather
+     * than transferring the file with zero copy, and whose <code>Content-Length</code> the caller must set.
+     *
+     * @return a JAX-RS response entity for the document
+     */
+    Object entity() {
+        return bytes != null ? bytes : (StreamingOutput) this::writeTo;
+    }
+
+    /**
+     * Writes the whole document to the given stream.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(OutputStream out) throws IOException {
+        if (bytes != null) {
+            out.write(bytes);
+        } else {
+            copy(content.duplicate(), out);
+        }
+    }
+
+    /**
+     * Copies a buffer to a stream. Heap buffers are written directly from their array, and other buffers
+     * are copied in bounded chunks so that the whole document is never copied onto the heap.
+     */
+    private static void copy(ByteBuffer source, OutputStream out) throws IOException {
+        if (source.hasArray()) {
+            out.write(source.array(), source.arrayOffset() + source.position(), source.remaining());
+            source.position(source.limit());
+            return;
+        }
+        var chunk = new byte[Math.min(WRITE_CHUNK_SIZE, source.remaining())];
+        while (source.hasRemaining()) {
+            var size = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, size);
+            out.write(chunk, 0, size);
+        }
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the content encoding of the document, or null if it is not encoded
+     */
+    String contentEncoding() {
+        return contentEncoding;
+    }
+
+    /**
+     * @return the gzip encoded variant of this document, or null if precompression was not requested
+     */
+    RenderedSpec gzipped() {
+        return gzipped;
+    }
+
+    /**
+     * @return a strong entity tag derived from the content of the document, so each encoding has its own tag
+     */
+    EntityTag etag() {
+        return new EntityTag(etag);
+    }
+
+    /**
+     * @return the entity tag as an <code>ETag</code> header value, which does not need a JAX-RS runtime
+     */
+    String etagHeader() {
+        return "\"" + etag + "\"";
+    }
+
+    /**
+     * Checks the value of an <code>If-None-Match</code> request header against this document's entity tag
+     * using the weak comparison required by RFC 9110 for that header.
+     *
+     * @param ifNoneMatch the raw header value, or null if the header was not sent
+     * @return true if a 304 may be returned instead of the document
+     */
+    boolean isMatchedBy(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")
+                && tag.substring(1, tag.length() - 1).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(ByteBuffer content) {
+        var out = new ByteArrayOutputStream(Math.max(512, content.remaining() / 8));
+        try (var gzipOut = new GZIPOutputStream(out)) {
+            if (content.hasArray()) {
+                gzipOut.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            } else {
+                copy(content, gzipOut);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error compressing OpenAPI document", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(ByteBuffer content) {
+        try {
+            var messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(content);
+            var digest = messageDigest.digest();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
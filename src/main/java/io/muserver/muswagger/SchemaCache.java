@@ -0,0 +1,178 @@
+package io.muserver.muswagger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.core.util.Json31;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A cache of the schemas that swagger resolves for model classes, which can be shared by OpenAPI resources that
+ * document the same model classes, such as the resources for several tenants or API versions. Each model class
+ * is then introspected once rather than once per resource.
+ *
+ * <p>Caching is off unless a cache is given to {@link MuOpenApiResourceBuilder#withSchemaCache(SchemaCache)}, and
+ * only resources given the same cache share schemas. Other uses of swagger in the JVM are not affected. The
+ * cache holds at most the given number of resolved types, removing the least recently used, and is cleared when
+ * the last resource using it is closed so that it does not keep model classes reachable.</p>
+ *
+ * <p>Schemas are stored in their serialized form and a new copy is made for each resource that uses them, as
+ * swagger modifies the schemas it resolves. Settings of swagger's <code>ModelResolver</code> that are changed
+ * at runtime are not part of the cache key, so change them before any documents are generated.</p>
+ */
+@SuppressWarnings("rawtypes") // swagger's converter API uses raw schemas
+public final class SchemaCache {
+
+    private static final ThreadLocal<SchemaCache> active = new ThreadLocal<>();
+
+    private final int maximumSize;
+    private final Map<Object, Entry> entries;
+    private int users;
+
+    private SchemaCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > SchemaCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize the maximum number of resolved types to keep, which must be at least 1
+     * @return a new, empty cache
+     * @throws IllegalArgumentException if the maximum size is less than 1
+     */
+    public static SchemaCache schemaCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("The schema cache size must be at least 1 but was " + maximumSize);
+        }
+        return new SchemaCache(maximumSize);
+    }
+
+    /**
+     * Gets the maximum number of resolved types that are kept.
+     *
+     * @return the maximum size
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Gets the number of resolved types currently cached.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all the cached schemas.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Registers a resource that uses this cache.
+     */
+    synchronized void retain() {
+        users++;
+    }
+
+    /**
+     * Unregisters a resource that uses this cache, clearing it if no resources use it any more.
+     */
+    synchronized void release() {
+        if (--users <= 0) {
+            users = 0;
+            entries.clear();
+        }
+    }
+
+    synchronized Entry get(Object key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(Object key, Entry entry) {
+        entries.putIfAbsent(key, entry);
+    }
+
+    /**
+     * Runs an action with this cache used for the schemas that swagger resolves on the current thread.
+     */
+    <T> T activate(Callable<T> action) throws Exception {
+        var previous = active.get();
+        active.set(this);
+        try {
+            return action.call();
+        } finally {
+            if (previous == null) {
+                active.remove();
+            } else {
+                active.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return the cache for the resource being read on the current thread, or null if it does not use one
+     */
+    static SchemaCache active() {
+        return active.get();
+    }
+
+    /**
+     * A schema in its serialized form, along with its name which is not serialized.
+     */
+    record Frozen(String name, byte[] json) {
+
+        /**
+         * @return the frozen copy, or null if the schema could not be serialized
+         */
+        static Frozen freeze(Schema schema, boolean openapi31) {
+            try {
+                return new Frozen(schema.getName(), mapper(openapi31).writeValueAsBytes(schema));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return a new copy of the schema, or null if it could not be deserialized
+         */
+        Schema thaw(boolean openapi31) {
+            try {
+                var schema = mapper(openapi31).readValue(json, Schema.class);
+                schema.setName(name);
+                return schema;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        private static ObjectMapper mapper(boolean openapi31) {
+            return openapi31 ? Json31.mapper() : Json.mapper();
+        }
+    }
+
+    /**
+     * A resolved schema and the models defined while resolving it.
+     *
+     * @param schema the resolved schema, or null if it is one of the defined models
+     * @param models the defined models by name
+     * @param definedAs the name of the defined model that the resolved schema is, if it is one
+     */
+    record Entry(Frozen schema, Map<String, Frozen> models, String definedAs) {
+    }
+
+}
@@ -0,0 +1,174 @@
+package io.muserver.muswagger;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import io.swagger.v3.core.converter.AnnotatedType;
+import io.swagger.v3.core.converter.ModelConverter;
+import io.swagger.v3.core.converter.ModelConverterContext;
+import io.swagger.v3.core.converter.ModelConverters;
+import io.swagger.v3.oas.integration.api.OpenAPIConfiguration;
+import io.swagger.v3.oas.models.media.Schema;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The swagger model converter that looks up and stores schemas in the {@link SchemaCache} of the resource being
+ * read on the current thread.
+ *
+ * <p>Swagger's reader always resolves schemas with its JVM-wide {@link ModelConverters} instances, so this converter
+ * is added at the head of those. When the current thread is not reading for a resource with a cache it passes
+ * every call straight on, so other uses of swagger are unaffected.</p>
+ *
+ * <p>Only top-level resolutions are cached, which is when swagger resolves a type with a new converter context,
+ * as the result then depends only on the type, its annotations and the converters after this one.</p>
+ */
+@SuppressWarnings("rawtypes") // swagger's converter API uses raw schemas
+final class SchemaCacheConverter implements ModelConverter {
+
+    /**
+     * Marks a type whose resolution had side effects that a cache hit could not repeat.
+     */
+    private static final SchemaCache.Entry UNCACHEABLE = new SchemaCache.Entry(null, Map.of(), null);
+
+    private static final ThreadLocal<Boolean> resolving = ThreadLocal.withInitial(() -> false);
+
+    private final ModelConverters owner;
+    private final boolean openapi31;
+
+    private SchemaCacheConverter(ModelConverters owner, boolean openapi31) {
+        this.owner = owner;
+        this.openapi31 = openapi31;
+    }
+
+    /**
+     * Adds the converter to the swagger model converters used with the given configuration, if it does not
+     * have it already.
+     */
+    static void install(OpenAPIConfiguration config) {
+        var configuration = config.toConfiguration();
+        var openapi31 = Boolean.TRUE.equals(configuration.isOpenAPI31());
+        var converters = ModelConverters.getInstance(configuration);
+        synchronized (SchemaCacheConverter.class) {
+            if (converters.getConverters().stream().noneMatch(SchemaCacheConverter.class::isInstance)) {
+                converters.addConverter(new SchemaCacheConverter(converters, openapi31));
+            }
+        }
+    }
+
+    @Override
+    public Schema resolve(AnnotatedType type, ModelConverterContext context, Iterator<ModelConverter> chain) {
+        if (!chain.hasNext()) {
+            return null;
+        }
+        var next = chain.next();
+        var cache = SchemaCache.active();
+        if (cache == null || resolving.get()) {
+            return next.resolve(type, context, chain);
+        }
+        if (type.getParent() != null || type.getJsonUnwrappedHandler() != null || !context.getDefinedModels().isEmpty()) {
+            return resolveUncached(next, type, context, chain);
+        }
+        var key = Key.of(type, openapi31, convertersAfter());
+        var entry = cache.get(key);
+        if (entry != null && entry != UNCACHEABLE) {
+            var replayed = replay(entry, context);
+            if (replayed != null) {
+                return replayed;
+            }
+        }
+        if (entry != null) {
+            return resolveUncached(next, type, context, chain);
+        }
+
+        var components = type.getComponents();
+        int componentSchemas = components == null || components.getSchemas() == null ? 0 : components.getSchemas().size();
+        var resolved = resolveUncached(next, type, context, chain);
+        if (resolved != null) {
+            boolean componentsChanged = components != null && components.getSchemas() != null
+                && components.getSchemas().size() != componentSchemas;
+            cache.put(key, componentsChanged ? UNCACHEABLE : freeze(resolved, context));
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves with the rest of the chain, which will resolve nested types through this converter again. Those
+     * are never cached, as their schemas depend on what has been resolved before them.
+     */
+    private static Schema resolveUncached(ModelConverter next, AnnotatedType type, ModelConverterContext context, Iterator<ModelConverter> chain) {
+        resolving.set(true);
+        try {
+            return next.resolve(type, context, chain);
+        } finally {
+            resolving.set(false);
+        }
+    }
+
+    private SchemaCache.Entry freeze(Schema resolved, ModelConverterContext context) {
+        var models = new LinkedHashMap<String, SchemaCache.Frozen>();
+        String definedAs = null;
+        for (var model : context.getDefinedModels().entrySet()) {
+            var frozen = SchemaCache.Frozen.freeze(model.getValue(), openapi31);
+            if (frozen == null) {
+                return UNCACHEABLE;
+            }
+            models.put(model.getKey(), frozen);
+            if (model.getValue() == resolved) {
+                definedAs = model.getKey();
+            }
+        }
+        var schema = definedAs == null ? SchemaCache.Frozen.freeze(resolved, openapi31) : null;
+        return definedAs == null && schema == null ? UNCACHEABLE : new SchemaCache.Entry(schema, models, definedAs);
+    }
+
+    /**
+     * Defines copies of the cached models in the context and returns a copy of the schema, or returns null
+     * without defining anything if they could not be copied.
+     */
+    private Schema replay(SchemaCache.Entry entry, ModelConverterContext context) {
+        var copies = new LinkedHashMap<String, Schema>();
+        for (var model : entry.models().entrySet()) {
+            var copy = model.getValue().thaw(openapi31);
+            if (copy == null) {
+                return null;
+            }
+            copies.put(model.getKey(), copy);
+        }
+        var result = entry.definedAs() == null ? entry.schema().thaw(openapi31) : copies.get(entry.definedAs());
+        if (result != null) {
+            copies.forEach(context::defineModel);
+        }
+        return result;
+    }
+
+    private List<ModelConverter> convertersAfter() {
+        var converters = owner.getConverters();
+        return List.copyOf(converters.subList(converters.indexOf(this) + 1, converters.size()));
+    }
+
+    @Override
+    public boolean isOpenapi31() {
+        return openapi31;
+    }
+
+    /**
+     * Everything in an annotated type that affects a top-level resolution, plus the converters it is resolved by.
+     */
+    private record Key(Type type, List<Object> annotations, JsonView jsonView, boolean includePropertiesWithoutJsonView,
+                       boolean subtype, String propertyName, boolean schemaProperty, String name, boolean resolveAsRef,
+                       boolean resolveEnumAsRef, boolean skipOverride, boolean skipSchemaName, boolean skipJsonIdentity,
+                       boolean openapi31, List<ModelConverter> converters) {
+        static Key of(AnnotatedType type, boolean openapi31, List<ModelConverter> converters) {
+            var annotations = type.getCtxAnnotations() == null ? List.of() : Arrays.asList((Object[]) type.getCtxAnnotations().clone());
+            return new Key(type.getType(), annotations, type.getJsonViewAnnotation(), type.isIncludePropertiesWithoutJSONView(),
+                type.isSubtype(), type.getPropertyName(), type.isSchemaProperty(), type.getName(), type.isResolveAsRef(),
+                type.isResolveEnumAsRef(), type.isSkipOverride(), type.isSkipSchemaName(), type.isSkipJsonIdentity(),
+                openapi31, converters);
+        }
+    }
+
+}
@@ -1,311 +0,0 @@
-package io.muserver.muswagger;
-
-import io.muserver.MuRequest;
-import io.muserver.MuServer;
-import jakarta.servlet.*;
-import jakarta.servlet.descriptor.JspConfigDescriptor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.InputStream;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.*;
-import java.util.concurrent.ConcurrentMap;
-
-class ServletContextAdaptor implements ServletContext {
-
-    private static final Logger log = LoggerFactory.getLogger(ServletContextAdaptor.class);
-    private final MuRequest req;
-    private final ConcurrentMap<String, String> initialConfig;
-    private final ConcurrentMap<String, Object> containerAttributes;
-
-    ServletContextAdaptor(MuRequest req, ConcurrentMap<String, String> initialConfig, ConcurrentMap<String, Object> containerAttributes) {
-        this.req = req;
-        this.initialConfig = initialConfig;
-        this.containerAttributes = containerAttributes;
-    }
-
-    @Override
-    public String getContextPath() {
-        return req.contextPath();
-    }
-
-    @Override
-    public ServletContext getContext(String uripath) {
-        return null;
-    }
-
-    @Override
-    public int getMajorVersion() {
-        return 3;
-    }
-
-    @Override
-    public int getMinorVersion() {
-        return 0;
-    }
-
-    @Override
-    public int getEffectiveMajorVersion() {
-        return 3;
-    }
-
-    @Override
-    public int getEffectiveMinorVersion() {
-        return 0;
-    }
-
-    @Override
-    public String getMimeType(String file) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Set<String> getResourcePaths(String path) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public URL getResource(String path) {
-        return getClassLoader().getResource(path);
-    }
-
-    @Override
-    public InputStream getResourceAsStream(String path) {
-        return getClassLoader().getResourceAsStream(path);
-    }
-
-    @Override
-    public RequestDispatcher getRequestDispatcher(String path) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public RequestDispatcher getNamedDispatcher(String name) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void log(String msg) {
-        log.info(msg);
-    }
-
-    @Override
-    public void log(String message, Throwable throwable) {
-        log.error(message, throwable);
-    }
-
-    @Override
-    public String getRealPath(String path) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getServerInfo() {
-        return "MuServer/" + MuServer.artifactVersion();
-    }
-
-    @Override
-    public String getInitParameter(String name) {
-        return initialConfig.get(name);
-    }
-
-    @Override
-    public Enumeration<String> getInitParameterNames() {
-        return Collections.enumeration(initialConfig.keySet());
-    }
-
-    @Override
-    public boolean setInitParameter(String name, String value) {
-        if (initialConfig.containsKey(name)) {
-            return false;
-        }
-        return initialConfig.put(name, value) == null;
-    }
-
-    @Override
-    public Object getAttribute(String name) {
-        return containerAttributes.get(name);
-    }
-
-    @Override
-    public Enumeration<String> getAttributeNames() {
-        return Collections.enumeration(containerAttributes.keySet());
-    }
-
-    @Override
-    public void setAttribute(String name, Object object) {
-        if (object == null) {
-            containerAttributes.remove(name);
-        } else {
-            containerAttributes.put(name, object);
-        }
-    }
-
-    @Override
-    public void removeAttribute(String name) {
-        containerAttributes.remove(name);
-    }
-
-    @Override
-    public String getServletContextName() {
-        return null;
-    }
-
-    @Override
-    public ServletRegistration.Dynamic addServlet(String servletName, String className) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public ServletRegistration.Dynamic addServlet(String servletName, Servlet servlet) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public ServletRegistration.Dynamic addServlet(String servletName, Class<? extends Servlet> servletClass) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public ServletRegistration.Dynamic addJspFile(String servletName, String jspFile) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public <T extends Servlet> T createServlet(Class<T> clazz) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public ServletRegistration getServletRegistration(String servletName) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Map<String, ? extends ServletRegistration> getServletRegistrations() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public FilterRegistration.Dynamic addFilter(String filterName, String className) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public FilterRegistration.Dynamic addFilter(String filterName, Filter filter) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public FilterRegistration.Dynamic addFilter(String filterName, Class<? extends Filter> filterClass) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public <T extends Filter> T createFilter(Class<T> clazz) throws ServletException {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public FilterRegistration getFilterRegistration(String filterName) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Map<String, ? extends FilterRegistration> getFilterRegistrations() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public SessionCookieConfig getSessionCookieConfig() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void setSessionTrackingModes(Set<SessionTrackingMode> sessionTrackingModes) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Set<SessionTrackingMode> getDefaultSessionTrackingModes() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Set<SessionTrackingMode> getEffectiveSessionTrackingModes() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void addListener(String className) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public <T extends EventListener> void addListener(T t) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void addListener(Class<? extends EventListener> listenerClass) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public <T extends EventListener> T createListener(Class<T> clazz) throws ServletException {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public JspConfigDescriptor getJspConfigDescriptor() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public ClassLoader getClassLoader() {
-        return req.getClass().getClassLoader();
-    }
-
-    @Override
-    public void declareRoles(String... roleNames) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getVirtualServerName() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public int getSessionTimeout() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void setSessionTimeout(int sessionTimeout) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getRequestCharacterEncoding() {
-        return StandardCharsets.UTF_8.name();
-    }
-
-    @Override
-    public void setRequestCharacterEncoding(String encoding) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public String getResponseCharacterEncoding() {
-        return StandardCharsets.UTF_8.name();
-    }
-
-    @Override
-    public void setResponseCharacterEncoding(String encoding) {
-        throw new UnsupportedOperationException();
-    }
-
-}
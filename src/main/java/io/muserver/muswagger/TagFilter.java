@@ -0,0 +1,54 @@
+package io.muserver.muswagger;
+
+import io.swagger.v3.core.filter.AbstractSpecFilter;
+import io.swagger.v3.core.filter.SpecFilter;
+import io.swagger.v3.core.model.ApiDescription;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A swagger spec filter that keeps only the operations with at least one of the given tags, along with the
+ * component schemas that those operations reference directly or indirectly.
+ */
+class TagFilter extends AbstractSpecFilter {
+
+    private final Set<String> tags;
+
+    TagFilter(Set<String> tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * Creates a filtered copy of a model. The given model is not changed.
+     */
+    static OpenAPI filter(OpenAPI openApi, Set<String> tags) {
+        var filtered = new SpecFilter().filter(openApi, new TagFilter(tags), Map.of(), Map.of(), Map.of());
+        if (filtered.getTags() != null) {
+            filtered.setTags(filtered.getTags().stream().filter(tag -> tags.contains(tag.getName())).toList());
+        }
+        return filtered;
+    }
+
+    @Override
+    public Optional<Operation> filterOperation(Operation operation, ApiDescription api, Map<String, List<String>> params,
+                                               Map<String, String> cookies, Map<String, List<String>> headers) {
+        if (operation.getTags() != null) {
+            for (String tag : operation.getTags()) {
+                if (tags.contains(tag)) {
+                    return Optional.of(operation);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isRemovingUnreferencedDefinitions() {
+        return true;
+    }
+}
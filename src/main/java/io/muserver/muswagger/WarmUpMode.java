@@ -0,0 +1,29 @@
+package io.muserver.muswagger;
+
+/**
+ * Specifies when the OpenAPI documents are generated.
+ *
+ * @see MuOpenApiResourceBuilder#withWarmUpMode(WarmUpMode)
+ */
+public enum WarmUpMode {
+
+    /**
+     * The documents are generated during {@link MuOpenApiResourceBuilder#build()}, which will not return
+     * until generation is complete.
+     */
+    EAGER,
+
+    /**
+     * The documents are generated on a background thread that is started by {@link MuOpenApiResourceBuilder#build()}.
+     * Use {@link MuOpenApiResource#ready()} or {@link MuOpenApiResource#isReady()} to find out when generation
+     * has finished. Requests received before then wait for the background generation in progress rather than
+     * generating the documents again, and if it fails the documents are generated on request.
+     */
+    BACKGROUND,
+
+    /**
+     * The documents are generated when they are first requested.
+     */
+    LAZY
+
+}
@@ -0,0 +1,205 @@
+package io.muserver.muswagger;
+
+import io.muserver.AsyncHandle;
+import io.muserver.DoneCallback;
+import io.muserver.Headers;
+import io.muserver.Method;
+import io.muserver.MuRequest;
+import io.muserver.MuResponse;
+import io.muserver.RequestParameters;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MuOpenApiHandlerTest {
+
+    @Test
+    void matchingIfNoneMatchGetsNotModified() throws Exception {
+        var handler = MuOpenApiResourceTest.petstore().buildHandler();
+        try {
+            var first = Exchange.get("/openapi.yaml").run(handler);
+            assertEquals(200, first.status);
+            assertTrue(first.body.size() > 0);
+            var etag = first.responseHeaders.get("etag");
+            assertNotNull(etag);
+
+            var second = Exchange.get("/openapi.yaml").header("if-none-match", etag).run(handler);
+            assertEquals(304, second.status);
+            assertEquals(0, second.body.size());
+            assertEquals(etag, second.responseHeaders.get("etag"));
+        } finally {
+            handler.close();
+        }
+    }
+
+    @Test
+    void headGetsTheHeadersWithoutTheBody() throws Exception {
+        var handler = MuOpenApiResourceTest.petstore().buildHandler();
+        try {
+            var get = Exchange.get("/openapi.yaml").run(handler);
+            var head = Exchange.get("/openapi.yaml").method(Method.HEAD).run(handler);
+            assertEquals(200, head.status);
+            assertEquals(0, head.body.size());
+            assertEquals(String.valueOf(get.body.size()), head.responseHeaders.get("content-length"));
+            assertEquals(get.responseHeaders.get("etag"), head.responseHeaders.get("etag"));
+        } finally {
+            handler.close();
+        }
+    }
+
+    @Test
+    void closedHandlersGetServiceUnavailable() throws Exception {
+        var handler = MuOpenApiResourceTest.petstore().buildHandler();
+        handler.close();
+        var exchange = Exchange.get("/openapi.json").run(handler);
+        assertEquals(503, exchange.status);
+    }
+
+    @Test
+    void rejectedGenerationGetsServiceUnavailable() throws Exception {
+        var handler = MuOpenApiResourceTest.petstore()
+            .withGenerationExecutor(task -> {
+                throw new RejectedExecutionException("full");
+            })
+            .buildHandler();
+        try {
+            var exchange = Exchange.get("/openapi.json").run(handler);
+            assertEquals(503, exchange.status);
+            assertTrue(exchange.asyncCompleted);
+            assertEquals(0, exchange.body.size());
+        } finally {
+            handler.close();
+        }
+    }
+
+    @Test
+    void otherPathsAreNotHandled() throws Exception {
+        var handler = MuOpenApiResourceTest.petstore().buildHandler();
+        try {
+            assertFalse(handler.handle(Exchange.get("/other").request(), Exchange.get("/other").response()));
+        } finally {
+            handler.close();
+        }
+    }
+
+    /**
+     * A request and response backed by maps, recording what the handler sends.
+     */
+    private static class Exchange {
+        private final String path;
+        private Method method = Method.GET;
+        private final Map<String, String> requestHeaders = new HashMap<>();
+        private final Map<String, String> responseHeaders = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final CompletableFuture<Void> completed = new CompletableFuture<>();
+        private int status;
+        private boolean asyncCompleted;
+
+        private Exchange(String path) {
+            this.path = path;
+        }
+
+        static Exchange get(String path) {
+            return new Exchange(path);
+        }
+
+        Exchange method(Method method) {
+            this.method = method;
+            return this;
+        }
+
+        Exchange header(String name, String value) {
+            requestHeaders.put(name, value);
+            return this;
+        }
+
+        Exchange run(MuOpenApiHandler handler) throws Exception {
+            if (!handler.handle(request(), response(), () -> completed.complete(null))) {
+                throw new AssertionError("The request to " + path + " was not handled");
+            }
+            completed.get(30, TimeUnit.SECONDS);
+            return this;
+        }
+
+        MuRequest request() {
+            var handle = proxy(AsyncHandle.class, (name, args) -> {
+                if (name.equals("write")) {
+                    var buffer = (ByteBuffer) args[0];
+                    var bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    body.writeBytes(bytes);
+                    try {
+                        ((DoneCallback) args[1]).onComplete(null);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                } else if (name.equals("complete")) {
+                    asyncCompleted = true;
+                }
+                return null;
+            });
+            var query = proxy(RequestParameters.class, (name, args) -> null);
+            var headers = headers(requestHeaders);
+            return proxy(MuRequest.class, (name, args) -> switch (name) {
+                case "method" -> method;
+                case "relativePath" -> path;
+                case "headers" -> headers;
+                case "query" -> query;
+                case "handleAsync" -> handle;
+                default -> null;
+            });
+        }
+
+        MuResponse response() {
+            var headers = headers(responseHeaders);
+            return proxy(MuResponse.class, (name, args) -> switch (name) {
+                case "status" -> {
+                    if (args != null) {
+                        status = (Integer) args[0];
+                    }
+                    yield status;
+                }
+                case "headers" -> headers;
+                case "contentType" -> {
+                    responseHeaders.put("content-type", args[0].toString());
+                    yield null;
+                }
+                case "outputStream" -> body;
+                default -> null;
+            });
+        }
+
+        private static Headers headers(Map<String, String> values) {
+            return proxy(Headers.class, (name, args) -> switch (name) {
+                case "get" -> values.get(args[0].toString().toLowerCase());
+                case "set" -> {
+                    values.put(args[0].toString().toLowerCase(), String.valueOf(args[1]));
+                    yield null;
+                }
+                case "accept" -> List.of();
+                default -> null;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, BiFunction<String, Object[], Object> behaviour) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (instance, method, args) -> behaviour.apply(method.getName(), args));
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package io.muserver.muswagger;
+
+import io.swagger.petstore.resource.PetResource;
+import io.swagger.petstore.resource.PetStoreResource;
+import io.swagger.petstore.resource.UserResource;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MuOpenApiResourceTest {
+
+    @Test
+    void gzipIsAcceptedUnlessRefused() {
+        assertFalse(MuOpenApiResource.acceptsGzip(null));
+        assertFalse(MuOpenApiResource.acceptsGzip(""));
+        assertFalse(MuOpenApiResource.acceptsGzip("identity"));
+        assertTrue(MuOpenApiResource.acceptsGzip("gzip"));
+        assertTrue(MuOpenApiResource.acceptsGzip("GZIP"));
+        assertTrue(MuOpenApiResource.acceptsGzip("deflate, gzip;q=0.5"));
+        assertTrue(MuOpenApiResource.acceptsGzip("br, *"));
+        assertFalse(MuOpenApiResource.acceptsGzip("gzip;q=0"));
+        assertFalse(MuOpenApiResource.acceptsGzip("gzip; q=0.0"));
+        assertFalse(MuOpenApiResource.acceptsGzip("*;q=0"));
+        assertFalse(MuOpenApiResource.acceptsGzip("*, gzip;q=0"));
+        assertFalse(MuOpenApiResource.acceptsGzip("gzip;q=oops"));
+    }
+
+    @Test
+    void concurrentRequestsForAFilteredDocumentRenderItOnce() throws Exception {
+        var serialized = new AtomicInteger();
+        var metrics = new OpenApiMetrics() {
+            @Override
+            public void serialized(String contextId, String format, Duration duration, long bytes) {
+                serialized.incrementAndGet();
+            }
+        };
+        var tags = MuOpenApiResource.parseTags("pet,store");
+        var threads = 16;
+        var executor = Executors.newFixedThreadPool(threads);
+        try (var resource = petstore().withMetrics(metrics).build()) {
+            var start = new CountDownLatch(1);
+            var results = new ArrayList<Future<RenderedSpec>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return resource.document("json", tags, false);
+                }));
+            }
+            start.countDown();
+            var first = results.get(0).get();
+            for (Future<RenderedSpec> result : results) {
+                assertSame(first, result.get());
+            }
+            assertEquals(1, serialized.get());
+            assertTrue(resource.isCached("json", tags, false));
+            assertFalse(resource.isCached("json", tags, true));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void filteredDocumentsAreNeverCachedWhenTheCacheIsDisabled() throws Exception {
+        var tags = MuOpenApiResource.parseTags("pet");
+        try (var resource = petstore().withFilteredDocumentCacheSize(0).build()) {
+            assertTrue(resource.streamsFilteredDocuments());
+            assertFalse(resource.isCached("json", tags, false));
+        }
+    }
+
+    static MuOpenApiResourceBuilder petstore() {
+        return MuOpenApiResourceBuilder.muOpenApiResource()
+            .withResources(List.of(new PetResource(), new PetStoreResource(), new UserResource()));
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.muserver.muswagger;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderedSpecTest {
+
+    private static final byte[] DOCUMENT = "{\"openapi\":\"3.0.1\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        var spec = RenderedSpec.create(DOCUMENT, "application/json", false);
+        var etag = spec.etagHeader();
+        assertTrue(spec.isMatchedBy(etag));
+        assertTrue(spec.isMatchedBy("W/" + etag));
+        assertTrue(spec.isMatchedBy("\"other\", " + etag));
+        assertTrue(spec.isMatchedBy("*"));
+        assertFalse(spec.isMatchedBy(null));
+        assertFalse(spec.isMatchedBy("\"other\""));
+        assertFalse(spec.isMatchedBy(etag.substring(1, etag.length() - 1)));
+    }
+
+    @Test
+    void gzippedCopyHasItsOwnEntityTag() throws Exception {
+        var spec = RenderedSpec.create(DOCUMENT, "application/json", true);
+        var gzipped = spec.gzipped();
+        assertEquals("gzip", gzipped.contentEncoding());
+        assertNull(spec.contentEncoding());
+        assertNotEquals(spec.etagHeader(), gzipped.etagHeader());
+        assertFalse(gzipped.isMatchedBy(spec.etagHeader()));
+
+        var out = new ByteArrayOutputStream();
+        gzipped.writeTo(out);
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertArrayEquals(DOCUMENT, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void gzipIsOnlyCreatedWhenRequested() {
+        assertNull(RenderedSpec.create(DOCUMENT, "application/json", false).gzipped());
+    }
+
+}
@@ -30,12 +30,14 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.security.*;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.petstore.data.PetData;
 import io.swagger.petstore.model.*;
 
 import java.io.IOException;
 import java.io.OutputStream;
 
+@Tag(name = "pet", description = "Everything about your pets")
 @Path("/pet")
 @SecuritySchemes(value = {
         @SecurityScheme(name = "petsApiKey", type = SecuritySchemeType.APIKEY,
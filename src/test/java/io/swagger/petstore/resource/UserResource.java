@@ -25,9 +25,11 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import io.swagger.v3.oas.annotations.security.*;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.petstore.data.UserData;
 import io.swagger.petstore.model.User;
 
+@Tag(name = "user", description = "Operations about users")
 @Path("/user")
 @Produces({"application/json", "application/xml"})
 @SecuritySchemes(value = {